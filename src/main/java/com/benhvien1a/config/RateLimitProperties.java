@@ -0,0 +1,41 @@
+package com.benhvien1a.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Route groups and bucket sizes for RateLimitFilter, bound from the "rate-limit" section of application.yml.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+    private boolean enabled = true;
+    // Bucket của một client bị bỏ sau chừng này phút không có request
+    private long clientIdleMinutes = 10;
+    private long maxClients = 100000;
+    // Số thread đang chờ kết nối Hikari từ đó bắt đầu từ chối các nhóm cho phép shed
+    private int shedPendingThreshold = 10;
+    private List<Group> groups = new ArrayList<>();
+
+    @Data
+    public static class Group {
+        private String name;
+        // Rỗng = mọi method
+        private List<String> methods = new ArrayList<>();
+        private List<String> patterns = new ArrayList<>();
+        private Bucket perClient;
+        private Bucket global;
+        private boolean shedOnSaturation;
+    }
+
+    @Data
+    public static class Bucket {
+        private long capacity;
+        private double refillPerSecond;
+    }
+}
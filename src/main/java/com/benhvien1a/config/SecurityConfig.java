@@ -7,6 +7,7 @@
 package com.benhvien1a.config;
 
 import com.benhvien1a.security.JwtAuthenticationFilter;
+import com.benhvien1a.security.RateLimitFilter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -23,6 +24,7 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
+import org.springframework.web.filter.CorsFilter;
 
 import java.util.Arrays;
 
@@ -39,6 +41,7 @@ import java.util.Arrays;
 public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final RateLimitFilter rateLimitFilter;
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
@@ -52,15 +55,22 @@ public class SecurityConfig {
                                 "/api/v1/doctors/public",
                                 "/api/v1/appointments",
                                 "/api/v1/auth/login",
+                                "/api/v1/auth/refresh",
                                 "/api/v1/site-config"
                               ).permitAll()
                         .requestMatchers( "/api/v1/posts/public").permitAll()
+                        .requestMatchers( "/api/v1/posts/public/search").permitAll()
+                        .requestMatchers( "/api/v1/posts/trending").permitAll()
                         .requestMatchers( "/api/v1/departments/public").permitAll()
                         .requestMatchers( "/api/v1/doctors/by-slug/**").permitAll()
                         .requestMatchers( "/api/v1/doctors/public/**").permitAll()
+                        .requestMatchers( "/api/v1/doctors/autocomplete").permitAll()
+                        .requestMatchers( "/api/v1/doctors/facets/public").permitAll()
                         .requestMatchers( "/api/v1/departments/by-slug/**").permitAll()
                         .requestMatchers( "/api/v1/posts/by-slug/**").permitAll()
                         .requestMatchers( "/api/v1/posts/by-type/**").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/sitemap.xml", "/sitemaps/**", "/rss/**").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/v1/availability/**").permitAll()
                         // Tất cả GET công khai
                         .requestMatchers(HttpMethod.POST, "/api/v1/appointments").permitAll() // POST đăng ký lịch khám công khai
                         // EDITOR: Quyền truy cập các endpoint liên quan
@@ -76,6 +86,8 @@ public class SecurityConfig {
                         // Còn lại phải đăng nhập
                         .anyRequest().authenticated()
                 )
+                // Giới hạn tần suất ngay sau CORS (429 vẫn mang header CORS) và trước khi giải mã JWT
+                .addFilterAfter(rateLimitFilter, CorsFilter.class)
                 .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
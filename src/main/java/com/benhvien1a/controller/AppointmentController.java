@@ -1,11 +1,19 @@
 package com.benhvien1a.controller;
 
 import com.benhvien1a.dto.AppointmentDTO;
+import com.benhvien1a.exception.BookingUnconfirmedException;
+import com.benhvien1a.exception.InvalidCursorException;
+import com.benhvien1a.exception.ServiceBusyException;
+import com.benhvien1a.exception.SpamRejectedException;
 import com.benhvien1a.response.ApiResponse;
+import com.benhvien1a.response.CursorSlice;
 import com.benhvien1a.model.Appointment;
 import com.benhvien1a.model.AppointmentStatus;
 import com.benhvien1a.service.AppointmentService;
 import com.benhvien1a.util.ApiResponseUtil;
+import com.benhvien1a.util.ExportFormat;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
@@ -13,11 +21,15 @@ import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
 @RestController
 @RequestMapping("/api/v1/appointments")
 @RequiredArgsConstructor
@@ -26,11 +38,28 @@ public class AppointmentController {
     private final AppointmentService appointmentService;
 
     @PostMapping
-    public ResponseEntity<ApiResponse<Appointment>> createAppointment(@Valid @RequestBody AppointmentDTO appointment) {
+    public ResponseEntity<ApiResponse<Appointment>> createAppointment(@Valid @RequestBody AppointmentDTO appointment, HttpServletRequest httpRequest) {
         logger.info("Received request to create appointment: {}", appointment.getFullName());
         try {
-            Appointment createdAppointment = appointmentService.createAppointment(appointment);
+            Appointment createdAppointment = appointmentService.createAppointment(appointment, httpRequest.getRemoteAddr());
             return ApiResponseUtil.buildResponse(true, "Appointment created successfully", createdAppointment, "/api/v1/appointments");
+        } catch (SpamRejectedException e) {
+            if (e.getRetryAfterSeconds() > 0) {
+                return ResponseEntity.status(e.getStatus())
+                        .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                        .body(new ApiResponse<>(
+                                false,
+                                e.getMessage(),
+                                null,
+                                e.getMessage(),
+                                ZonedDateTime.now(ZoneId.of("UTC")),
+                                "/api/v1/appointments"
+                        ));
+            }
+            return ApiResponseUtil.buildErrorResponse(e.getStatus(), e.getMessage(), e.getMessage(), "/api/v1/appointments");
+        } catch (ServiceBusyException | BookingUnconfirmedException e) {
+            // GlobalExceptionHandler trả 503 kèm Retry-After, hoặc 202 khi lịch có thể đã được lưu
+            throw e;
         } catch (Exception e) {
             logger.error("Failed to create appointment: {}", e.getMessage());
             return ApiResponseUtil.buildErrorResponse(HttpStatus.BAD_REQUEST, "Failed to create appointment: " + e.getMessage(), e.getMessage(), "/api/v1/appointments");
@@ -76,6 +105,31 @@ public class AppointmentController {
         }
     }
 
+    @GetMapping("/export")
+    @PreAuthorize("hasAnyRole('ADMIN', 'EDITOR')")
+    public ResponseEntity<ApiResponse<Void>> exportAppointments(
+            @RequestParam(required = false) AppointmentStatus status,
+            @RequestParam(defaultValue = "CSV") ExportFormat format,
+            HttpServletResponse response) throws Exception {
+        logger.info("Received request to export appointments with status: {}, format: {}", status, format);
+        response.setContentType(format.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + format.fileName("appointments") + "\"");
+        try {
+            long rows = appointmentService.exportAppointments(status, format, response.getOutputStream());
+            logger.info("Exported {} appointments", rows);
+            // Dữ liệu đã được ghi thẳng vào response
+            return null;
+        } catch (Exception e) {
+            logger.error("Failed to export appointments: {}", e.getMessage());
+            // Lỗi sau khi đã gửi dữ liệu thì chỉ có thể cắt ngang response
+            if (response.isCommitted()) {
+                throw e;
+            }
+            response.reset();
+            return ApiResponseUtil.buildErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to export appointments: " + e.getMessage(), e.getMessage(), "/api/v1/appointments/export");
+        }
+    }
+
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'EDITOR')")
     public ResponseEntity<ApiResponse<Page<Appointment>>> getAllAppointments(
@@ -96,6 +150,25 @@ public class AppointmentController {
         }
     }
 
+    @GetMapping(params = "after")
+    @PreAuthorize("hasAnyRole('ADMIN', 'EDITOR')")
+    public ResponseEntity<ApiResponse<CursorSlice<Appointment>>> getAppointmentsAfter(
+            @RequestParam String after,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) AppointmentStatus status,
+            @RequestParam(required = false) String fullName) {
+        logger.info("Received request to get appointments after: {}, size: {}, status: {}, fullName: {}", after, size, status, fullName);
+        try {
+            CursorSlice<Appointment> appointments = appointmentService.getFilteredAppointmentsAfter(status, fullName, after, size);
+            return ApiResponseUtil.buildResponse(true, "All appointments retrieved successfully", appointments, "/api/v1/appointments");
+        } catch (InvalidCursorException e) {
+            return ApiResponseUtil.buildErrorResponse(HttpStatus.BAD_REQUEST, e.getMessage(), e.getMessage(), "/api/v1/appointments");
+        } catch (Exception e) {
+            logger.error("Failed to retrieve all appointments: {}", e.getMessage());
+            return ApiResponseUtil.buildErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to retrieve all appointments: " + e.getMessage(), e.getMessage(), "/api/v1/appointments");
+        }
+    }
+
     @PatchMapping("/{id}/hide")
     @PreAuthorize("hasAnyRole('ADMIN', 'EDITOR')")
     public ResponseEntity<ApiResponse<Void>> hideAppointment(@PathVariable Long id) {
@@ -7,17 +7,22 @@ package com.benhvien1a.controller;
 
 import com.benhvien1a.response.AuthResponse;
 import com.benhvien1a.request.LoginRequest;
+import com.benhvien1a.request.RefreshTokenRequest;
 import com.benhvien1a.response.ApiResponse;
 import com.benhvien1a.exception.AuthException;
+import com.benhvien1a.exception.LoginLockedException;
 import com.benhvien1a.service.AuthService;
 import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.ZoneId;
@@ -34,10 +39,10 @@ public class AuthController {
 
 
     @PostMapping("/login")
-    public ResponseEntity<ApiResponse<AuthResponse>> login(@Valid @RequestBody LoginRequest request) {
+    public ResponseEntity<ApiResponse<AuthResponse>> login(@Valid @RequestBody LoginRequest request, HttpServletRequest httpRequest) {
         logger.info("Nhận yêu cầu đăng nhập cho: {}", request.getEmail());
         try {
-            AuthResponse response = authService.login(request);
+            AuthResponse response = authService.login(request, httpRequest.getRemoteAddr());
             return ResponseEntity.ok(new ApiResponse<>(
                     true,
                     "Đăng nhập thành công",
@@ -46,6 +51,17 @@ public class AuthController {
                     ZonedDateTime.now(ZoneId.of("UTC")),
                     "/api/v1/auth/login"
             ));
+        } catch (LoginLockedException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(new ApiResponse<>(
+                            false,
+                            e.getMessage(),
+                            null,
+                            e.getMessage(),
+                            ZonedDateTime.now(ZoneId.of("UTC")),
+                            "/api/v1/auth/login"
+                    ));
         } catch (AuthException e) {
             logger.error("Đăng nhập thất bại cho {}: {}", request.getEmail(), e.getMessage());
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new ApiResponse<>(
@@ -58,9 +74,39 @@ public class AuthController {
             ));
         }
     }
+    @PostMapping("/refresh")
+    public ResponseEntity<ApiResponse<AuthResponse>> refresh(@Valid @RequestBody RefreshTokenRequest request) {
+        logger.info("Nhận yêu cầu làm mới token");
+        try {
+            AuthResponse response = authService.refresh(request.getRefreshToken());
+            return ResponseEntity.ok(new ApiResponse<>(
+                    true,
+                    "Làm mới token thành công",
+                    response,
+                    null,
+                    ZonedDateTime.now(ZoneId.of("UTC")),
+                    "/api/v1/auth/refresh"
+            ));
+        } catch (AuthException e) {
+            logger.error("Làm mới token thất bại: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new ApiResponse<>(
+                    false,
+                    e.getMessage(),
+                    null,
+                    e.getMessage(),
+                    ZonedDateTime.now(ZoneId.of("UTC")),
+                    "/api/v1/auth/refresh"
+            ));
+        }
+    }
+
     @PostMapping("/logout")
-    public ResponseEntity<ApiResponse<AuthResponse>> logout(HttpServletResponse response) {
+    public ResponseEntity<ApiResponse<AuthResponse>> logout(HttpServletResponse response, Authentication authentication) {
         logger.info("Nhận yêu cầu đăng xuất");
+        // Token không còn được chấp nhận sau khi đăng xuất, dù chưa hết hạn
+        if (authentication != null) {
+            authService.revokeTokens(authentication.getName());
+        }
         // Xóa cookie token
         Cookie cookie = new Cookie("token", null);
         cookie.setPath("/");
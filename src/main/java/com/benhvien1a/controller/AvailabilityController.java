@@ -0,0 +1,54 @@
+package com.benhvien1a.controller;
+
+import com.benhvien1a.response.ApiResponse;
+import com.benhvien1a.response.DayAvailability;
+import com.benhvien1a.response.SlotAvailability;
+import com.benhvien1a.service.AvailabilityService;
+import com.benhvien1a.util.ApiResponseUtil;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/availability")
+@RequiredArgsConstructor
+public class AvailabilityController {
+    private static final Logger logger = LoggerFactory.getLogger(AvailabilityController.class);
+    private final AvailabilityService availabilityService;
+
+    @GetMapping("/departments/{departmentSlug}")
+    public ResponseEntity<ApiResponse<List<DayAvailability>>> getDepartmentMonthAvailability(
+            @PathVariable String departmentSlug,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth month) {
+        logger.info("Received request to get availability of department slug: {} for month: {}", departmentSlug, month);
+        try {
+            List<DayAvailability> days = availabilityService.getDepartmentMonthAvailability(departmentSlug, month);
+            return ApiResponseUtil.buildResponse(true, "Department availability retrieved successfully", days, "/api/v1/availability/departments/" + departmentSlug);
+        } catch (Exception e) {
+            logger.error("Failed to retrieve department availability: {}", e.getMessage());
+            return ApiResponseUtil.buildErrorResponse(HttpStatus.BAD_REQUEST, "Failed to retrieve department availability: " + e.getMessage(), e.getMessage(), "/api/v1/availability/departments/" + departmentSlug);
+        }
+    }
+
+    @GetMapping("/doctors/{doctorId}")
+    public ResponseEntity<ApiResponse<List<SlotAvailability>>> getDoctorDayAvailability(
+            @PathVariable Long doctorId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        logger.info("Received request to get availability of doctor ID: {} on: {}", doctorId, date);
+        try {
+            List<SlotAvailability> slots = availabilityService.getDoctorDayAvailability(doctorId, date);
+            return ApiResponseUtil.buildResponse(true, "Doctor availability retrieved successfully", slots, "/api/v1/availability/doctors/" + doctorId);
+        } catch (Exception e) {
+            logger.error("Failed to retrieve doctor availability: {}", e.getMessage());
+            return ApiResponseUtil.buildErrorResponse(HttpStatus.NOT_FOUND, "Failed to retrieve doctor availability: " + e.getMessage(), e.getMessage(), "/api/v1/availability/doctors/" + doctorId);
+        }
+    }
+}
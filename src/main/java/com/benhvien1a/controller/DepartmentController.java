@@ -1,10 +1,15 @@
 package com.benhvien1a.controller;
 
 import com.benhvien1a.dto.DepartmentDTO;
+import com.benhvien1a.exception.InvalidCursorException;
+import com.benhvien1a.repository.projection.ListVersion;
+import com.benhvien1a.repository.projection.DepartmentSummary;
 import com.benhvien1a.response.ApiResponse;
+import com.benhvien1a.response.CursorSlice;
 import com.benhvien1a.model.Department;
 import com.benhvien1a.service.DepartmentService;
 import com.benhvien1a.util.ApiResponseUtil;
+import com.benhvien1a.util.HttpCacheUtils;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
@@ -17,6 +22,9 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDateTime;
 
 @RestController
 @RequestMapping("/api/v1/departments")
@@ -78,11 +86,18 @@ public class DepartmentController {
     }
 
     @GetMapping("/by-slug/{slug}")
-    public ResponseEntity<ApiResponse<Department>> getDepartmentBySlug(@PathVariable String slug) {
+    public ResponseEntity<ApiResponse<Department>> getDepartmentBySlug(@PathVariable String slug, WebRequest webRequest) {
         logger.info("Received request to get department with slug: {}", slug);
         try {
+            // Kiểm tra phiên bản bằng truy vấn nhẹ trước khi tải toàn bộ khoa
+            LocalDateTime updateAt = departmentService.getDepartmentUpdateAtBySlug(slug).orElse(null);
+            String eTag = HttpCacheUtils.eTag("department", slug, updateAt);
+            long lastModified = HttpCacheUtils.lastModified(updateAt);
+            if (updateAt != null && HttpCacheUtils.isNotModified(webRequest, eTag, lastModified)) {
+                return ApiResponseUtil.buildNotModifiedResponse(eTag, lastModified);
+            }
             Department department = departmentService.getDepartmentBySlug(slug);
-            return ApiResponseUtil.buildResponse(true, "Department retrieved successfully", department, "/api/v1/departments/by-slug/" + slug);
+            return ApiResponseUtil.buildCacheableResponse(true, "Department retrieved successfully", department, "/api/v1/departments/by-slug/" + slug, eTag, lastModified);
         } catch (Exception e) {
             logger.error("Failed to retrieve department with slug {}: {}", slug, e.getMessage());
             return ApiResponseUtil.buildErrorResponse(HttpStatus.NOT_FOUND, "Failed to retrieve department: " + e.getMessage(), e.getMessage(), "/api/v1/departments/by-slug/" + slug);
@@ -109,15 +124,62 @@ public class DepartmentController {
         }
     }
 
+    @GetMapping(params = "after")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<CursorSlice<Department>>> getDepartmentsAfter(
+            @RequestParam String after,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) Boolean isActive) {
+        logger.info("Received request to get departments after: {}, size: {}, name: {}, isActive: {}", after, size, name, isActive);
+        try {
+            CursorSlice<Department> departments = departmentService.getFilteredDepartmentsAfter(name, isActive, after, size);
+            return ApiResponseUtil.buildResponse(true, "All departments retrieved successfully", departments, "/api/v1/departments");
+        } catch (InvalidCursorException e) {
+            return ApiResponseUtil.buildErrorResponse(HttpStatus.BAD_REQUEST, e.getMessage(), e.getMessage(), "/api/v1/departments");
+        } catch (Exception e) {
+            logger.error("Failed to retrieve all departments: {}", e.getMessage());
+            return ApiResponseUtil.buildErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to retrieve all departments: " + e.getMessage(), e.getMessage(), "/api/v1/departments");
+        }
+    }
+
     @GetMapping("/public")
-    public ResponseEntity<ApiResponse<Page<Department>>> getAllActiveDepartments(
+    public ResponseEntity<ApiResponse<Page<DepartmentSummary>>> getAllActiveDepartments(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            WebRequest webRequest) {
         logger.info("Received request to get all active departments with page: {}, size: {}", page, size);
         try {
+            ListVersion version = departmentService.getActiveDepartmentsVersion();
+            String eTag = HttpCacheUtils.eTag("departments-public", version.getLastUpdateAt(), version.getTotal(), page, size);
+            if (HttpCacheUtils.isNotModified(webRequest, eTag, -1)) {
+                return ApiResponseUtil.buildNotModifiedResponse(eTag, -1);
+            }
             Pageable pageable = PageRequest.of(page, size);
-            Page<Department> departments = departmentService.getAllActiveDepartments(pageable);
-            return ApiResponseUtil.buildResponse(true, "All active departments retrieved successfully", departments, "/api/v1/departments/public");
+            Page<DepartmentSummary> departments = departmentService.getAllActiveDepartments(pageable);
+            return ApiResponseUtil.buildCacheableResponse(true, "All active departments retrieved successfully", departments, "/api/v1/departments/public", eTag, -1);
+        } catch (Exception e) {
+            logger.error("Failed to retrieve all active departments: {}", e.getMessage());
+            return ApiResponseUtil.buildErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to retrieve all active departments: " + e.getMessage(), e.getMessage(), "/api/v1/departments/public");
+        }
+    }
+
+    @GetMapping(value = "/public", params = "after")
+    public ResponseEntity<ApiResponse<CursorSlice<DepartmentSummary>>> getActiveDepartmentsAfter(
+            @RequestParam String after,
+            @RequestParam(defaultValue = "10") int size,
+            WebRequest webRequest) {
+        logger.info("Received request to get active departments after: {}, size: {}", after, size);
+        try {
+            ListVersion version = departmentService.getActiveDepartmentsVersion();
+            String eTag = HttpCacheUtils.eTag("departments-public", version.getLastUpdateAt(), version.getTotal(), size, after);
+            if (HttpCacheUtils.isNotModified(webRequest, eTag, -1)) {
+                return ApiResponseUtil.buildNotModifiedResponse(eTag, -1);
+            }
+            CursorSlice<DepartmentSummary> departments = departmentService.getActiveDepartmentsAfter(after, size);
+            return ApiResponseUtil.buildCacheableResponse(true, "All active departments retrieved successfully", departments, "/api/v1/departments/public", eTag, -1);
+        } catch (InvalidCursorException e) {
+            return ApiResponseUtil.buildErrorResponse(HttpStatus.BAD_REQUEST, e.getMessage(), e.getMessage(), "/api/v1/departments/public");
         } catch (Exception e) {
             logger.error("Failed to retrieve all active departments: {}", e.getMessage());
             return ApiResponseUtil.buildErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to retrieve all active departments: " + e.getMessage(), e.getMessage(), "/api/v1/departments/public");
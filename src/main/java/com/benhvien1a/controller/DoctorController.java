@@ -2,9 +2,16 @@ package com.benhvien1a.controller;
 
 import com.benhvien1a.dto.DoctorDTO;
 import com.benhvien1a.model.*;
+import com.benhvien1a.repository.projection.ListVersion;
+import com.benhvien1a.repository.projection.DoctorSummary;
 import com.benhvien1a.response.ApiResponse;
+import com.benhvien1a.response.CursorSlice;
+import com.benhvien1a.response.DoctorFacets;
 import com.benhvien1a.service.DoctorService;
 import com.benhvien1a.util.ApiResponseUtil;
+import com.benhvien1a.util.ExportFormat;
+import com.benhvien1a.util.HttpCacheUtils;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
@@ -12,11 +19,15 @@ import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDateTime;
 
 import java.util.List;
 
@@ -28,14 +39,42 @@ public class DoctorController {
     private final DoctorService doctorService;
 
     @GetMapping("/public")
-    public ResponseEntity<ApiResponse<Page<Doctor>>> getAllActiveDoctors(
+    public ResponseEntity<ApiResponse<Page<DoctorSummary>>> getAllActiveDoctors(
+            @RequestParam(required = false) Position position,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
-        logger.info("Received request to get all active doctors with page: {}, size: {}", page, size);
+            @RequestParam(defaultValue = "10") int size,
+            WebRequest webRequest) {
+        logger.info("Received request to get all active doctors with position: {}, page: {}, size: {}", position, page, size);
         try {
+            ListVersion version = doctorService.getActiveDoctorsVersion(position);
+            String eTag = HttpCacheUtils.eTag("doctors-public", position, version.getLastUpdateAt(), version.getTotal(), page, size);
+            if (HttpCacheUtils.isNotModified(webRequest, eTag, -1)) {
+                return ApiResponseUtil.buildNotModifiedResponse(eTag, -1);
+            }
             Pageable pageable = PageRequest.of(page, size);
-            Page<Doctor> doctors = doctorService.getAllActiveDoctors(pageable);
-            return ApiResponseUtil.buildResponse(true, "All active doctors retrieved successfully", doctors, "/api/v1/doctors/public");
+            Page<DoctorSummary> doctors = doctorService.getAllActiveDoctors(position, pageable);
+            return ApiResponseUtil.buildCacheableResponse(true, "All active doctors retrieved successfully", doctors, "/api/v1/doctors/public", eTag, -1);
+        } catch (Exception e) {
+            logger.error("Failed to retrieve active doctors: {}", e.getMessage());
+            return ApiResponseUtil.buildErrorResponse(HttpStatus.BAD_REQUEST, "Failed to retrieve active doctors: " + e.getMessage(), e.getMessage(), "/api/v1/doctors/public");
+        }
+    }
+
+    @GetMapping(value = "/public", params = "after")
+    public ResponseEntity<ApiResponse<CursorSlice<DoctorSummary>>> getActiveDoctorsAfter(
+            @RequestParam(required = false) Position position,
+            @RequestParam String after,
+            @RequestParam(defaultValue = "10") int size,
+            WebRequest webRequest) {
+        logger.info("Received request to get active doctors with position: {} after: {}, size: {}", position, after, size);
+        try {
+            ListVersion version = doctorService.getActiveDoctorsVersion(position);
+            String eTag = HttpCacheUtils.eTag("doctors-public", position, version.getLastUpdateAt(), version.getTotal(), size, after);
+            if (HttpCacheUtils.isNotModified(webRequest, eTag, -1)) {
+                return ApiResponseUtil.buildNotModifiedResponse(eTag, -1);
+            }
+            CursorSlice<DoctorSummary> doctors = doctorService.getActiveDoctorsAfter(position, after, size);
+            return ApiResponseUtil.buildCacheableResponse(true, "All active doctors retrieved successfully", doctors, "/api/v1/doctors/public", eTag, -1);
         } catch (Exception e) {
             logger.error("Failed to retrieve active doctors: {}", e.getMessage());
             return ApiResponseUtil.buildErrorResponse(HttpStatus.BAD_REQUEST, "Failed to retrieve active doctors: " + e.getMessage(), e.getMessage(), "/api/v1/doctors/public");
@@ -43,21 +82,94 @@ public class DoctorController {
     }
 
     @GetMapping("/public/{departmentSlug}")
-    public ResponseEntity<ApiResponse<Page<Doctor>>> getDoctorsByDepartmentSlug(
+    public ResponseEntity<ApiResponse<Page<DoctorSummary>>> getDoctorsByDepartmentSlug(
             @PathVariable String departmentSlug,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            WebRequest webRequest) {
         logger.info("Received request to get doctors by department slug: {} with page: {}, size: {}", departmentSlug, page, size);
         try {
+            ListVersion version = doctorService.getDoctorsByDepartmentSlugVersion(departmentSlug);
+            String eTag = HttpCacheUtils.eTag("doctors-by-department", departmentSlug, version.getLastUpdateAt(), version.getTotal(), page, size);
+            if (HttpCacheUtils.isNotModified(webRequest, eTag, -1)) {
+                return ApiResponseUtil.buildNotModifiedResponse(eTag, -1);
+            }
             Pageable pageable = PageRequest.of(page, size);
-            Page<Doctor> doctors = doctorService.getDoctorsByDepartmentSlug(departmentSlug, pageable);
-            return ApiResponseUtil.buildResponse(true, "Doctors retrieved successfully", doctors, "/api/v1/doctors/public/" + departmentSlug);
+            Page<DoctorSummary> doctors = doctorService.getDoctorsByDepartmentSlug(departmentSlug, pageable);
+            return ApiResponseUtil.buildCacheableResponse(true, "Doctors retrieved successfully", doctors, "/api/v1/doctors/public/" + departmentSlug, eTag, -1);
         } catch (Exception e) {
             logger.error("Failed to retrieve doctors by department slug: {}", e.getMessage());
             return ApiResponseUtil.buildErrorResponse(HttpStatus.BAD_REQUEST, "Failed to retrieve doctors: " + e.getMessage(), e.getMessage(), "/api/v1/doctors/public/" + departmentSlug);
         }
     }
 
+    @GetMapping(value = "/public/{departmentSlug}", params = "after")
+    public ResponseEntity<ApiResponse<CursorSlice<DoctorSummary>>> getDoctorsByDepartmentSlugAfter(
+            @PathVariable String departmentSlug,
+            @RequestParam String after,
+            @RequestParam(defaultValue = "10") int size,
+            WebRequest webRequest) {
+        logger.info("Received request to get doctors by department slug: {} after: {}, size: {}", departmentSlug, after, size);
+        try {
+            ListVersion version = doctorService.getDoctorsByDepartmentSlugVersion(departmentSlug);
+            String eTag = HttpCacheUtils.eTag("doctors-by-department", departmentSlug, version.getLastUpdateAt(), version.getTotal(), size, after);
+            if (HttpCacheUtils.isNotModified(webRequest, eTag, -1)) {
+                return ApiResponseUtil.buildNotModifiedResponse(eTag, -1);
+            }
+            CursorSlice<DoctorSummary> doctors = doctorService.getDoctorsByDepartmentSlugAfter(departmentSlug, after, size);
+            return ApiResponseUtil.buildCacheableResponse(true, "Doctors retrieved successfully", doctors, "/api/v1/doctors/public/" + departmentSlug, eTag, -1);
+        } catch (Exception e) {
+            logger.error("Failed to retrieve doctors by department slug: {}", e.getMessage());
+            return ApiResponseUtil.buildErrorResponse(HttpStatus.BAD_REQUEST, "Failed to retrieve doctors: " + e.getMessage(), e.getMessage(), "/api/v1/doctors/public/" + departmentSlug);
+        }
+    }
+
+    // Không đặt dưới /public/ để không trùng với /public/{departmentSlug}
+    @GetMapping("/facets/public")
+    public ResponseEntity<ApiResponse<DoctorFacets>> getActiveDoctorFacets(
+            @RequestParam(required = false) Long departmentId,
+            @RequestParam(required = false) Position position) {
+        logger.info("Received request to get active doctor facets with departmentId: {}, position: {}", departmentId, position);
+        try {
+            DoctorFacets facets = doctorService.getDoctorFacets(true, departmentId, position);
+            return ApiResponseUtil.buildResponse(true, "Doctor facets retrieved successfully", facets, "/api/v1/doctors/facets/public");
+        } catch (Exception e) {
+            logger.error("Failed to retrieve active doctor facets: {}", e.getMessage());
+            return ApiResponseUtil.buildErrorResponse(HttpStatus.BAD_REQUEST, "Failed to retrieve doctor facets: " + e.getMessage(), e.getMessage(), "/api/v1/doctors/facets/public");
+        }
+    }
+
+    @GetMapping("/facets")
+    @PreAuthorize("hasAnyRole('ADMIN', 'EDITOR')")
+    public ResponseEntity<ApiResponse<DoctorFacets>> getDoctorFacets(
+            @RequestParam(required = false) Boolean isActive,
+            @RequestParam(required = false) Long departmentId,
+            @RequestParam(required = false) Position position) {
+        logger.info("Received request to get doctor facets with isActive: {}, departmentId: {}, position: {}", isActive, departmentId, position);
+        try {
+            DoctorFacets facets = doctorService.getDoctorFacets(isActive, departmentId, position);
+            return ApiResponseUtil.buildResponse(true, "Doctor facets retrieved successfully", facets, "/api/v1/doctors/facets");
+        } catch (Exception e) {
+            logger.error("Failed to retrieve doctor facets: {}", e.getMessage());
+            return ApiResponseUtil.buildErrorResponse(HttpStatus.BAD_REQUEST, "Failed to retrieve doctor facets: " + e.getMessage(), e.getMessage(), "/api/v1/doctors/facets");
+        }
+    }
+
+    @GetMapping("/autocomplete")
+    public ResponseEntity<ApiResponse<List<DoctorSummary>>> autocompleteDoctors(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "8") int limit) {
+        // Gọi theo từng phím gõ: chỉ log ở mức debug
+        logger.debug("Received request to autocomplete doctors with q: {}, limit: {}", q, limit);
+        try {
+            List<DoctorSummary> doctors = doctorService.autocompleteDoctors(q, limit);
+            return ApiResponseUtil.buildResponse(true, "Doctor suggestions retrieved successfully", doctors, "/api/v1/doctors/autocomplete");
+        } catch (Exception e) {
+            logger.error("Failed to autocomplete doctors: {}", e.getMessage());
+            return ApiResponseUtil.buildErrorResponse(HttpStatus.BAD_REQUEST, "Failed to autocomplete doctors: " + e.getMessage(), e.getMessage(), "/api/v1/doctors/autocomplete");
+        }
+    }
+
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @PreAuthorize("hasAnyRole('ADMIN', 'EDITOR')")
     public ResponseEntity<ApiResponse<Doctor>> createDoctor(@Valid @ModelAttribute DoctorDTO request) {
@@ -111,17 +223,48 @@ public class DoctorController {
     }
 
     @GetMapping("/by-slug/{slug}")
-    public ResponseEntity<ApiResponse<Doctor>> getDoctorBySlug(@PathVariable String slug) {
+    public ResponseEntity<ApiResponse<Doctor>> getDoctorBySlug(@PathVariable String slug, WebRequest webRequest) {
         logger.info("Received request to get doctor with slug: {}", slug);
         try {
+            // Kiểm tra phiên bản bằng truy vấn nhẹ trước khi tải toàn bộ bác sĩ
+            LocalDateTime updateAt = doctorService.getDoctorUpdateAtBySlug(slug).orElse(null);
+            String eTag = HttpCacheUtils.eTag("doctor", slug, updateAt);
+            long lastModified = HttpCacheUtils.lastModified(updateAt);
+            if (updateAt != null && HttpCacheUtils.isNotModified(webRequest, eTag, lastModified)) {
+                return ApiResponseUtil.buildNotModifiedResponse(eTag, lastModified);
+            }
             Doctor doctor = doctorService.getDoctorBySlug(slug);
-            return ApiResponseUtil.buildResponse(true, "Doctor retrieved successfully", doctor, "/api/v1/doctors/by-slug/" + slug);
+            return ApiResponseUtil.buildCacheableResponse(true, "Doctor retrieved successfully", doctor, "/api/v1/doctors/by-slug/" + slug, eTag, lastModified);
         } catch (Exception e) {
             logger.error("Failed to retrieve doctor: {}", e.getMessage());
             return ApiResponseUtil.buildErrorResponse(HttpStatus.BAD_REQUEST, "Failed to retrieve doctor: " + e.getMessage(), e.getMessage(), "/api/v1/doctors/by-slug/" + slug);
         }
     }
 
+    @GetMapping("/export")
+    @PreAuthorize("hasAnyRole('ADMIN', 'EDITOR')")
+    public ResponseEntity<ApiResponse<Void>> exportDoctors(
+            @RequestParam(defaultValue = "CSV") ExportFormat format,
+            HttpServletResponse response) throws Exception {
+        logger.info("Received request to export doctors with format: {}", format);
+        response.setContentType(format.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + format.fileName("doctors") + "\"");
+        try {
+            long rows = doctorService.exportDoctors(format, response.getOutputStream());
+            logger.info("Exported {} doctors", rows);
+            // Dữ liệu đã được ghi thẳng vào response
+            return null;
+        } catch (Exception e) {
+            logger.error("Failed to export doctors: {}", e.getMessage());
+            // Lỗi sau khi đã gửi dữ liệu thì chỉ có thể cắt ngang response
+            if (response.isCommitted()) {
+                throw e;
+            }
+            response.reset();
+            return ApiResponseUtil.buildErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to export doctors: " + e.getMessage(), e.getMessage(), "/api/v1/doctors/export");
+        }
+    }
+
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'EDITOR')")
     public ResponseEntity<ApiResponse<Page<Doctor>>> getAllDoctors(
@@ -138,6 +281,24 @@ public class DoctorController {
         return ApiResponseUtil.buildResponse(true, "All doctors retrieved successfully", doctors, "/api/v1/doctors");
     }
 
+    @GetMapping(params = "after")
+    @PreAuthorize("hasAnyRole('ADMIN', 'EDITOR')")
+    public ResponseEntity<ApiResponse<CursorSlice<Doctor>>> getDoctorsAfter(
+            @RequestParam String after,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String fullName,
+            @RequestParam(required = false) Boolean isActive,
+            @RequestParam(required = false) Long departmentId,
+            @RequestParam(required = false) Position position) {
+        logger.info("Received request to get doctors after: {}, size: {}", after, size);
+        try {
+            CursorSlice<Doctor> doctors = doctorService.getFilteredDoctorsAfter(fullName, isActive, departmentId, position, after, size);
+            return ApiResponseUtil.buildResponse(true, "All doctors retrieved successfully", doctors, "/api/v1/doctors");
+        } catch (Exception e) {
+            logger.error("Failed to retrieve doctors: {}", e.getMessage());
+            return ApiResponseUtil.buildErrorResponse(HttpStatus.BAD_REQUEST, "Failed to retrieve doctors: " + e.getMessage(), e.getMessage(), "/api/v1/doctors");
+        }
+    }
 
     @PatchMapping("/{id}/hide")
     @PreAuthorize("hasAnyRole('ADMIN', 'EDITOR')")
@@ -1,12 +1,21 @@
 package com.benhvien1a.controller;
 
 import com.benhvien1a.dto.PostDTO;
+import com.benhvien1a.exception.InvalidCursorException;
 import com.benhvien1a.response.ApiResponse;
 import com.benhvien1a.model.Post;
 import com.benhvien1a.model.PostStatus;
 import com.benhvien1a.model.PostType;
+import com.benhvien1a.repository.projection.PostListVersion;
+import com.benhvien1a.repository.projection.PostSummary;
+import com.benhvien1a.response.CursorSlice;
+import com.benhvien1a.response.PostSearchHit;
+import com.benhvien1a.response.TrendingPost;
 import com.benhvien1a.service.PostService;
 import com.benhvien1a.util.ApiResponseUtil;
+import com.benhvien1a.util.ExportFormat;
+import com.benhvien1a.util.HttpCacheUtils;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
@@ -14,13 +23,16 @@ import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/v1/posts")
@@ -82,11 +94,17 @@ public class PostController {
     }
 
     @GetMapping("/by-slug/{slug}")
-    public ResponseEntity<ApiResponse<Post>> getPostBySlug(@PathVariable String slug) {
+    public ResponseEntity<ApiResponse<Post>> getPostBySlug(@PathVariable String slug, WebRequest webRequest) {
         logger.info("Received request to get post with slug: {}", slug);
         try {
             Post post = postService.getPostBySlug(slug);
-            return ApiResponseUtil.buildResponse(true, "Post retrieved successfully", post, "/api/v1/posts/by-slug/" + slug);
+            // viewCount nằm trong body nên cũng phải nằm trong ETag, giống danh sách (totalViews)
+            String eTag = HttpCacheUtils.eTag("post", post.getId(), post.getUpdateAt(), post.getViewCount());
+            long lastModified = HttpCacheUtils.lastModified(post.getUpdateAt());
+            if (HttpCacheUtils.isNotModified(webRequest, eTag, lastModified)) {
+                return ApiResponseUtil.buildNotModifiedResponse(eTag, lastModified);
+            }
+            return ApiResponseUtil.buildCacheableResponse(true, "Post retrieved successfully", post, "/api/v1/posts/by-slug/" + slug, eTag, lastModified);
         } catch (Exception e) {
             logger.error("Failed to retrieve post: {}", e.getMessage());
             return ApiResponseUtil.buildErrorResponse(HttpStatus.NOT_FOUND, "Failed to retrieve post: " + e.getMessage(), e.getMessage(), "/api/v1/posts/by-slug/" + slug);
@@ -94,20 +112,72 @@ public class PostController {
     }
 
     @GetMapping("/public")
-    public ResponseEntity<ApiResponse<Page<Post>>> getAllActivePosts(
+    public ResponseEntity<ApiResponse<Page<PostSummary>>> getAllActivePosts(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            WebRequest webRequest) {
         logger.info("Received request to get all active posts with page: {}, size: {}", page, size);
         try {
+            PostListVersion version = postService.getActivePostsVersion();
+            String eTag = HttpCacheUtils.eTag("posts-public", version.getLastUpdateAt(), version.getTotal(), version.getTotalViews(), page, size);
+            if (HttpCacheUtils.isNotModified(webRequest, eTag, -1)) {
+                return ApiResponseUtil.buildNotModifiedResponse(eTag, -1);
+            }
             Pageable pageable = PageRequest.of(page, size);
-            Page<Post> posts = postService.getAllActivePosts(pageable);
-            return ApiResponseUtil.buildResponse(true, "All active posts retrieved successfully", posts, "/api/v1/posts/public");
+            Page<PostSummary> posts = postService.getAllActivePosts(pageable);
+            return ApiResponseUtil.buildCacheableResponse(true, "All active posts retrieved successfully", posts, "/api/v1/posts/public", eTag, -1);
+        } catch (Exception e) {
+            logger.error("Failed to retrieve active posts: {}", e.getMessage());
+            return ApiResponseUtil.buildErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to retrieve active posts: " + e.getMessage(), e.getMessage(), "/api/v1/posts/public");
+        }
+    }
+
+    @GetMapping(value = "/public", params = "after")
+    public ResponseEntity<ApiResponse<CursorSlice<PostSummary>>> getActivePostsAfter(
+            @RequestParam String after,
+            @RequestParam(defaultValue = "10") int size,
+            WebRequest webRequest) {
+        logger.info("Received request to get active posts after: {}, size: {}", after, size);
+        try {
+            PostListVersion version = postService.getActivePostsVersion();
+            String eTag = HttpCacheUtils.eTag("posts-public", version.getLastUpdateAt(), version.getTotal(), version.getTotalViews(), size, after);
+            if (HttpCacheUtils.isNotModified(webRequest, eTag, -1)) {
+                return ApiResponseUtil.buildNotModifiedResponse(eTag, -1);
+            }
+            CursorSlice<PostSummary> posts = postService.getActivePostsAfter(after, size);
+            return ApiResponseUtil.buildCacheableResponse(true, "All active posts retrieved successfully", posts, "/api/v1/posts/public", eTag, -1);
+        } catch (InvalidCursorException e) {
+            return ApiResponseUtil.buildErrorResponse(HttpStatus.BAD_REQUEST, e.getMessage(), e.getMessage(), "/api/v1/posts/public");
         } catch (Exception e) {
             logger.error("Failed to retrieve active posts: {}", e.getMessage());
             return ApiResponseUtil.buildErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to retrieve active posts: " + e.getMessage(), e.getMessage(), "/api/v1/posts/public");
         }
     }
 
+    @GetMapping("/export")
+    @PreAuthorize("hasAnyRole('ADMIN', 'EDITOR')")
+    public ResponseEntity<ApiResponse<Void>> exportPosts(
+            @RequestParam(defaultValue = "CSV") ExportFormat format,
+            HttpServletResponse response) throws Exception {
+        logger.info("Received request to export posts with format: {}", format);
+        response.setContentType(format.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + format.fileName("posts") + "\"");
+        try {
+            long rows = postService.exportPosts(format, response.getOutputStream());
+            logger.info("Exported {} posts", rows);
+            // Dữ liệu đã được ghi thẳng vào response
+            return null;
+        } catch (Exception e) {
+            logger.error("Failed to export posts: {}", e.getMessage());
+            // Lỗi sau khi đã gửi dữ liệu thì chỉ có thể cắt ngang response
+            if (response.isCommitted()) {
+                throw e;
+            }
+            response.reset();
+            return ApiResponseUtil.buildErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to export posts: " + e.getMessage(), e.getMessage(), "/api/v1/posts/export");
+        }
+    }
+
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'EDITOR')")
     public ResponseEntity<ApiResponse<Page<Post>>> getAllPosts(
@@ -129,6 +199,74 @@ public class PostController {
         }
     }
 
+    @GetMapping(params = "after")
+    @PreAuthorize("hasAnyRole('ADMIN', 'EDITOR')")
+    public ResponseEntity<ApiResponse<CursorSlice<Post>>> getPostsAfter(
+            @RequestParam String after,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String title,
+            @RequestParam(required = false) PostStatus status,
+            @RequestParam(required = false) PostType type) {
+        logger.info("Received request to get posts after: {}, size: {}, title: {}, status: {}, type: {}", after, size, title, status, type);
+        try {
+            CursorSlice<Post> posts = postService.getFilteredPostsAfter(title, status, type, after, size);
+            return ApiResponseUtil.buildResponse(true, "All posts retrieved successfully", posts, "/api/v1/posts");
+        } catch (InvalidCursorException e) {
+            return ApiResponseUtil.buildErrorResponse(HttpStatus.BAD_REQUEST, e.getMessage(), e.getMessage(), "/api/v1/posts");
+        } catch (Exception e) {
+            logger.error("Failed to retrieve all posts: {}", e.getMessage());
+            return ApiResponseUtil.buildErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to retrieve all posts: " + e.getMessage(), e.getMessage(), "/api/v1/posts");
+        }
+    }
+
+    @GetMapping("/search")
+    @PreAuthorize("hasAnyRole('ADMIN', 'EDITOR')")
+    public ResponseEntity<ApiResponse<Page<PostSearchHit>>> searchPosts(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) PostStatus status,
+            @RequestParam(required = false) PostType type) {
+        logger.info("Received request to search posts with q: {}, page: {}, size: {}, status: {}, type: {}", q, page, size, status, type);
+        try {
+            Page<PostSearchHit> posts = postService.searchPosts(q, status, type, PageRequest.of(page, size));
+            return ApiResponseUtil.buildResponse(true, "Posts searched successfully", posts, "/api/v1/posts/search");
+        } catch (Exception e) {
+            logger.error("Failed to search posts: {}", e.getMessage());
+            return ApiResponseUtil.buildErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to search posts: " + e.getMessage(), e.getMessage(), "/api/v1/posts/search");
+        }
+    }
+
+    @GetMapping("/public/search")
+    public ResponseEntity<ApiResponse<Page<PostSearchHit>>> searchActivePosts(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) PostType type) {
+        logger.info("Received request to search active posts with q: {}, page: {}, size: {}, type: {}", q, page, size, type);
+        try {
+            Page<PostSearchHit> posts = postService.searchPosts(q, PostStatus.PUBLIC, type, PageRequest.of(page, size));
+            return ApiResponseUtil.buildResponse(true, "Active posts searched successfully", posts, "/api/v1/posts/public/search");
+        } catch (Exception e) {
+            logger.error("Failed to search active posts: {}", e.getMessage());
+            return ApiResponseUtil.buildErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to search active posts: " + e.getMessage(), e.getMessage(), "/api/v1/posts/public/search");
+        }
+    }
+
+    @GetMapping("/trending")
+    public ResponseEntity<ApiResponse<List<TrendingPost>>> getTrendingPosts(
+            @RequestParam(required = false) PostType type,
+            @RequestParam(defaultValue = "10") int limit) {
+        logger.info("Received request to get trending posts with type: {}, limit: {}", type, limit);
+        try {
+            List<TrendingPost> posts = postService.getTrendingPosts(type, limit);
+            return ApiResponseUtil.buildResponse(true, "Trending posts retrieved successfully", posts, "/api/v1/posts/trending");
+        } catch (Exception e) {
+            logger.error("Failed to retrieve trending posts: {}", e.getMessage());
+            return ApiResponseUtil.buildErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to retrieve trending posts: " + e.getMessage(), e.getMessage(), "/api/v1/posts/trending");
+        }
+    }
+
     @PatchMapping("/{id}/hide")
     @PreAuthorize("hasAnyRole('ADMIN', 'EDITOR')")
     public ResponseEntity<ApiResponse<Void>> hidePost(@PathVariable Long id) {
@@ -155,16 +293,58 @@ public class PostController {
         }
     }
 
+    @GetMapping("/cache-stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getPublishedPostCacheStats() {
+        logger.info("Received request to get published post cache stats");
+        try {
+            Map<String, Object> stats = postService.getPublishedPostCacheStats();
+            return ApiResponseUtil.buildResponse(true, "Post cache stats retrieved successfully", stats, "/api/v1/posts/cache-stats");
+        } catch (Exception e) {
+            logger.error("Failed to retrieve post cache stats: {}", e.getMessage());
+            return ApiResponseUtil.buildErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to retrieve post cache stats: " + e.getMessage(), e.getMessage(), "/api/v1/posts/cache-stats");
+        }
+    }
+
     @GetMapping("/by-type/{type}")
-    public ResponseEntity<ApiResponse<Page<Post>>> getPostsByType(
+    public ResponseEntity<ApiResponse<Page<PostSummary>>> getPostsByType(
             @PathVariable PostType type,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            WebRequest webRequest) {
         logger.info("Received request to get posts by type: {} with page: {}, size: {}", type, page, size);
         try {
+            PostListVersion version = postService.getPostsByTypeVersion(type);
+            String eTag = HttpCacheUtils.eTag("posts-by-type", type, version.getLastUpdateAt(), version.getTotal(), version.getTotalViews(), page, size);
+            if (HttpCacheUtils.isNotModified(webRequest, eTag, -1)) {
+                return ApiResponseUtil.buildNotModifiedResponse(eTag, -1);
+            }
             Pageable pageable = PageRequest.of(page, size);
-            Page<Post> posts = postService.getPostsByType(type, pageable);
-            return ApiResponseUtil.buildResponse(true, "Posts by type retrieved successfully", posts, "/api/v1/posts/by-type/" + type);
+            Page<PostSummary> posts = postService.getPostsByType(type, pageable);
+            return ApiResponseUtil.buildCacheableResponse(true, "Posts by type retrieved successfully", posts, "/api/v1/posts/by-type/" + type, eTag, -1);
+        } catch (Exception e) {
+            logger.error("Failed to retrieve posts by type: {}", e.getMessage());
+            return ApiResponseUtil.buildErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to retrieve posts by type: " + e.getMessage(), e.getMessage(), "/api/v1/posts/by-type/" + type);
+        }
+    }
+
+    @GetMapping(value = "/by-type/{type}", params = "after")
+    public ResponseEntity<ApiResponse<CursorSlice<PostSummary>>> getPostsByTypeAfter(
+            @PathVariable PostType type,
+            @RequestParam String after,
+            @RequestParam(defaultValue = "10") int size,
+            WebRequest webRequest) {
+        logger.info("Received request to get posts by type: {} after: {}, size: {}", type, after, size);
+        try {
+            PostListVersion version = postService.getPostsByTypeVersion(type);
+            String eTag = HttpCacheUtils.eTag("posts-by-type", type, version.getLastUpdateAt(), version.getTotal(), version.getTotalViews(), size, after);
+            if (HttpCacheUtils.isNotModified(webRequest, eTag, -1)) {
+                return ApiResponseUtil.buildNotModifiedResponse(eTag, -1);
+            }
+            CursorSlice<PostSummary> posts = postService.getPostsByTypeAfter(type, after, size);
+            return ApiResponseUtil.buildCacheableResponse(true, "Posts by type retrieved successfully", posts, "/api/v1/posts/by-type/" + type, eTag, -1);
+        } catch (InvalidCursorException e) {
+            return ApiResponseUtil.buildErrorResponse(HttpStatus.BAD_REQUEST, e.getMessage(), e.getMessage(), "/api/v1/posts/by-type/" + type);
         } catch (Exception e) {
             logger.error("Failed to retrieve posts by type: {}", e.getMessage());
             return ApiResponseUtil.buildErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to retrieve posts by type: " + e.getMessage(), e.getMessage(), "/api/v1/posts/by-type/" + type);
@@ -3,12 +3,18 @@ package com.benhvien1a.controller;
 import com.benhvien1a.dto.SiteConfigDTO;
 import com.benhvien1a.model.SiteConfig;
 import com.benhvien1a.service.SiteConfigService;
+import com.benhvien1a.util.HttpCacheUtils;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartException;
 
+import java.time.LocalDateTime;
+
 @RestController
 @RequestMapping("/api/v1/site-config")
 @RequiredArgsConstructor
@@ -17,8 +23,23 @@ public class SiteConfigController {
     private final SiteConfigService siteConfigService;
 
     @GetMapping
-    public ResponseEntity<SiteConfig> getSiteConfig() {
-        return ResponseEntity.ok(siteConfigService.getSiteConfig());
+    public ResponseEntity<SiteConfig> getSiteConfig(WebRequest webRequest) {
+        // Kiểm tra phiên bản bằng truy vấn nhẹ trước khi tải cấu hình và danh sách banner
+        LocalDateTime updateAt = siteConfigService.getSiteConfigUpdateAt().orElse(null);
+        String eTag = HttpCacheUtils.eTag("site-config", updateAt);
+        long lastModified = HttpCacheUtils.lastModified(updateAt);
+        if (updateAt != null && HttpCacheUtils.isNotModified(webRequest, eTag, lastModified)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .cacheControl(CacheControl.noCache().cachePublic())
+                    .eTag(eTag)
+                    .lastModified(lastModified)
+                    .build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePublic());
+        if (updateAt != null) {
+            response.eTag(eTag).lastModified(lastModified);
+        }
+        return response.body(siteConfigService.getSiteConfig());
     }
 
     @PutMapping
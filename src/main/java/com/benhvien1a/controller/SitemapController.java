@@ -0,0 +1,85 @@
+package com.benhvien1a.controller;
+
+import com.benhvien1a.model.PostType;
+import com.benhvien1a.response.CompressedXml;
+import com.benhvien1a.service.SitemapService;
+import com.benhvien1a.util.HttpCacheUtils;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.*;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+@RestController
+@RequiredArgsConstructor
+public class SitemapController {
+    private static final Logger logger = LoggerFactory.getLogger(SitemapController.class);
+    private static final MediaType RSS_XML = MediaType.parseMediaType("application/rss+xml;charset=UTF-8");
+    private static final MediaType XML = MediaType.parseMediaType("application/xml;charset=UTF-8");
+
+    private final SitemapService sitemapService;
+
+    @GetMapping("/sitemap.xml")
+    public ResponseEntity<byte[]> getSitemapIndex(WebRequest webRequest) throws IOException {
+        logger.info("Received request to get sitemap index");
+        return serve(sitemapService.getSitemapIndex(), XML, webRequest);
+    }
+
+    @GetMapping("/sitemaps/{name}.xml")
+    public ResponseEntity<byte[]> getSitemap(@PathVariable String name, WebRequest webRequest) throws IOException {
+        logger.info("Received request to get sitemap: {}", name);
+        CompressedXml sitemap = sitemapService.getSitemap(name).orElse(null);
+        if (sitemap == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return serve(sitemap, XML, webRequest);
+    }
+
+    @GetMapping("/rss/{type}.xml")
+    public ResponseEntity<byte[]> getRssFeed(@PathVariable String type, WebRequest webRequest) throws IOException {
+        logger.info("Received request to get RSS feed for type: {}", type);
+        PostType postType;
+        try {
+            postType = PostType.valueOf(type.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+        return serve(sitemapService.getRssFeed(postType), RSS_XML, webRequest);
+    }
+
+    /**
+     * Serve the pre-compressed bytes as-is to gzip-capable clients; decompress only for the rest.
+     */
+    private ResponseEntity<byte[]> serve(CompressedXml document, MediaType mediaType, WebRequest webRequest) throws IOException {
+        long lastModified = HttpCacheUtils.lastModified(document.getLastModified());
+        if (HttpCacheUtils.isNotModified(webRequest, document.getETag(), lastModified)) {
+            return validators(ResponseEntity.status(HttpStatus.NOT_MODIFIED), document.getETag(), lastModified).build();
+        }
+        ResponseEntity.BodyBuilder response = validators(ResponseEntity.ok(), document.getETag(), lastModified)
+                .contentType(mediaType);
+        String acceptEncoding = webRequest.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip")) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(document.getGzip());
+        }
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(document.getGzip()))) {
+            return response.body(StreamUtils.copyToByteArray(in));
+        }
+    }
+
+    private static ResponseEntity.BodyBuilder validators(ResponseEntity.BodyBuilder builder, String eTag, long lastModified) {
+        builder.cacheControl(CacheControl.noCache().cachePublic()).eTag(eTag).varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (lastModified >= 0) {
+            builder.lastModified(lastModified);
+        }
+        return builder;
+    }
+}
@@ -0,0 +1,79 @@
+package com.benhvien1a.controller;
+
+import com.benhvien1a.dto.WorkingTemplateDTO;
+import com.benhvien1a.model.WorkingTemplate;
+import com.benhvien1a.response.ApiResponse;
+import com.benhvien1a.service.AvailabilityService;
+import com.benhvien1a.util.ApiResponseUtil;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/working-templates")
+@RequiredArgsConstructor
+public class WorkingTemplateController {
+    private static final Logger logger = LoggerFactory.getLogger(WorkingTemplateController.class);
+    private final AvailabilityService availabilityService;
+
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<List<WorkingTemplate>>> getWorkingTemplates(
+            @RequestParam(required = false) Long doctorId,
+            @RequestParam(required = false) Long departmentId) {
+        logger.info("Received request to get working templates with doctorId: {}, departmentId: {}", doctorId, departmentId);
+        try {
+            List<WorkingTemplate> templates = availabilityService.getWorkingTemplates(doctorId, departmentId);
+            return ApiResponseUtil.buildResponse(true, "Working templates retrieved successfully", templates, "/api/v1/working-templates");
+        } catch (Exception e) {
+            logger.error("Failed to retrieve working templates: {}", e.getMessage());
+            return ApiResponseUtil.buildErrorResponse(HttpStatus.BAD_REQUEST, "Failed to retrieve working templates: " + e.getMessage(), e.getMessage(), "/api/v1/working-templates");
+        }
+    }
+
+    @PostMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<WorkingTemplate>> createWorkingTemplate(@Valid @RequestBody WorkingTemplateDTO request) {
+        logger.info("Received request to create working template for doctorId: {}, departmentId: {}", request.getDoctorId(), request.getDepartmentId());
+        try {
+            WorkingTemplate template = availabilityService.createWorkingTemplate(request);
+            return ApiResponseUtil.buildResponse(true, "Working template created successfully", template, "/api/v1/working-templates");
+        } catch (Exception e) {
+            logger.error("Failed to create working template: {}", e.getMessage());
+            return ApiResponseUtil.buildErrorResponse(HttpStatus.BAD_REQUEST, "Failed to create working template: " + e.getMessage(), e.getMessage(), "/api/v1/working-templates");
+        }
+    }
+
+    @PutMapping("/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<WorkingTemplate>> updateWorkingTemplate(@PathVariable Long id, @Valid @RequestBody WorkingTemplateDTO request) {
+        logger.info("Received request to update working template with ID: {}", id);
+        try {
+            WorkingTemplate template = availabilityService.updateWorkingTemplate(id, request);
+            return ApiResponseUtil.buildResponse(true, "Working template updated successfully", template, "/api/v1/working-templates/" + id);
+        } catch (Exception e) {
+            logger.error("Failed to update working template: {}", e.getMessage());
+            return ApiResponseUtil.buildErrorResponse(HttpStatus.BAD_REQUEST, "Failed to update working template: " + e.getMessage(), e.getMessage(), "/api/v1/working-templates/" + id);
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Void>> deleteWorkingTemplate(@PathVariable Long id) {
+        logger.info("Received request to delete working template with ID: {}", id);
+        try {
+            availabilityService.deleteWorkingTemplate(id);
+            return ApiResponseUtil.buildResponse(true, "Working template deleted successfully", null, "/api/v1/working-templates/" + id);
+        } catch (Exception e) {
+            logger.error("Failed to delete working template: {}", e.getMessage());
+            return ApiResponseUtil.buildErrorResponse(HttpStatus.BAD_REQUEST, "Failed to delete working template: " + e.getMessage(), e.getMessage(), "/api/v1/working-templates/" + id);
+        }
+    }
+}
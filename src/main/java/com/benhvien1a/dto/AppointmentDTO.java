@@ -12,7 +12,9 @@ public class AppointmentDTO {
     private String phone;
     private String email;
     private LocalDate date;
+    // Khi có doctorId, timeSlot bắt đầu bằng giờ bắt đầu của slot (HH:mm)
     private String timeSlot;
+    private Long doctorId;
     private String note;
     private AppointmentStatus status;
     private String recaptchaToken;
@@ -0,0 +1,20 @@
+package com.benhvien1a.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+
+@Data
+public class WorkingTemplateDTO {
+    private Long doctorId;
+    private Long departmentId;
+    @NotNull
+    private DayOfWeek dayOfWeek;
+    @NotNull
+    private LocalTime startTime;
+    @NotNull
+    private LocalTime endTime;
+    private Boolean isActive;
+}
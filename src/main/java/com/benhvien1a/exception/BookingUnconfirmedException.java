@@ -0,0 +1,13 @@
+package com.benhvien1a.exception;
+
+/**
+ * Thrown when a queued booking was taken by the intake writer but its commit was not confirmed in time.
+ * The booking may still be stored, so it must not be retried or have its capacity reservation given back.
+ * Mapped to 202 by GlobalExceptionHandler.
+ */
+public class BookingUnconfirmedException extends RuntimeException {
+
+    public BookingUnconfirmedException(String message) {
+        super(message);
+    }
+}
@@ -3,6 +3,7 @@ package com.benhvien1a.exception;
 import com.benhvien1a.response.ApiResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -66,6 +67,47 @@ public class GlobalExceptionHandler {
         ));
     }
 
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ApiResponse<Object>> handleInvalidCursorException(InvalidCursorException ex, WebRequest request) {
+        logger.warn("Cursor không hợp lệ: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ApiResponse<>(
+                false,
+                ex.getMessage(),
+                null,
+                ex.getMessage(),
+                ZonedDateTime.now(ZoneId.of("UTC")),
+                ((ServletWebRequest) request).getRequest().getRequestURI()
+        ));
+    }
+
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<ApiResponse<Object>> handleServiceBusyException(ServiceBusyException ex, WebRequest request) {
+        logger.warn("Hệ thống bận: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ApiResponse<>(
+                        false,
+                        ex.getMessage(),
+                        null,
+                        ex.getMessage(),
+                        ZonedDateTime.now(ZoneId.of("UTC")),
+                        ((ServletWebRequest) request).getRequest().getRequestURI()
+                ));
+    }
+
+    @ExceptionHandler(BookingUnconfirmedException.class)
+    public ResponseEntity<ApiResponse<Object>> handleBookingUnconfirmedException(BookingUnconfirmedException ex, WebRequest request) {
+        logger.warn("Lịch hẹn chưa được xác nhận: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(new ApiResponse<>(
+                false,
+                ex.getMessage(),
+                null,
+                ex.getMessage(),
+                ZonedDateTime.now(ZoneId.of("UTC")),
+                ((ServletWebRequest) request).getRequest().getRequestURI()
+        ));
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<ApiResponse<Object>> handleRuntimeException(RuntimeException ex, WebRequest request) {
         logger.error("Lỗi thời gian chạy: {}", ex.getMessage(), ex);
@@ -0,0 +1,12 @@
+package com.benhvien1a.exception;
+
+/**
+ * Thrown when a keyset pagination cursor from the request cannot be decoded.
+ * Mapped to 400 by GlobalExceptionHandler.
+ */
+public class InvalidCursorException extends RuntimeException {
+
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,16 @@
+package com.benhvien1a.exception;
+
+import lombok.Getter;
+
+/**
+ * Thrown when login attempts for an account or from a client IP are temporarily locked out.
+ */
+@Getter
+public class LoginLockedException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public LoginLockedException(String message, long retryAfterSeconds) {
+        super(message, null, false, false);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,12 @@
+package com.benhvien1a.exception;
+
+/**
+ * Thrown when a bounded resource (e.g. the password-hashing executor) cannot take more work right now.
+ * Mapped to 503 by GlobalExceptionHandler.
+ */
+public class ServiceBusyException extends RuntimeException {
+
+    public ServiceBusyException(String message) {
+        super(message);
+    }
+}
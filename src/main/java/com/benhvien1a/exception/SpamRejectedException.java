@@ -0,0 +1,25 @@
+package com.benhvien1a.exception;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Thrown by the appointment pre-filter for submissions that are dropped before any remote verification.
+ * No stack trace is captured: rejections are expected under bot floods and must stay cheap.
+ * Rate-limit rejections carry the seconds until the limiter admits the caller again; 0 means no Retry-After.
+ */
+@Getter
+public class SpamRejectedException extends RuntimeException {
+    private final HttpStatus status;
+    private final long retryAfterSeconds;
+
+    public SpamRejectedException(HttpStatus status, String message) {
+        this(status, message, 0);
+    }
+
+    public SpamRejectedException(HttpStatus status, String message, long retryAfterSeconds) {
+        super(message, null, false, false);
+        this.status = status;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -26,11 +26,19 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Table(name = "appointments", indexes = {
         @Index(name = "idx_appointment_status", columnList = "status"),
-        @Index(name = "idx_appointment_created_at", columnList = "createdAt")
+        @Index(name = "idx_appointment_created_at", columnList = "createdAt"),
+        @Index(name = "idx_appointment_doctor_date", columnList = "doctorId, date")
 })
 public class Appointment {
+    // Id cấp theo khối (pooled) từ bảng id_generators thay cho IDENTITY để Hibernate gộp được INSERT thành batch
+    public static final String ID_GENERATOR_TABLE = "id_generators";
+    public static final String ID_GENERATOR_SEGMENT = "appointments";
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "appointment_id")
+    @TableGenerator(name = "appointment_id", table = ID_GENERATOR_TABLE, pkColumnName = "name", valueColumnName = "next_val",
+            pkColumnValue = ID_GENERATOR_SEGMENT, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
     private String fullName;
     private String email;
@@ -39,6 +47,10 @@ public class Appointment {
     private AppointmentStatus status;
     private LocalDate date;
     private String timeSlot;
+    private Long doctorId;
+    private Long departmentId;
+    // Vị trí slot trong lưới của SlotAvailabilityEngine khi lịch đang giữ chỗ của bác sĩ
+    private Integer slotIndex;
     private String note;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
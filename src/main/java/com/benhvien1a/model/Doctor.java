@@ -22,7 +22,8 @@ public class Doctor {
     private Long id;
     private String fullName;
     private String slug;
-    @ManyToOne
+    // Lazy: mỗi truy vấn trong DoctorRepository tự khai báo có nạp khoa hay không
+    @ManyToOne(fetch = FetchType.LAZY)
     private Department department;
     @Lob
     @Column(columnDefinition = "TEXT")
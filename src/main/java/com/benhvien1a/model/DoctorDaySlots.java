@@ -0,0 +1,29 @@
+package com.benhvien1a.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * Booked slots of one doctor on one day, one bit per slot of the day grid (see SlotAvailabilityEngine).
+ * Only written with atomic single-bit updates of bookedMask.
+ */
+@Entity
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "doctor_day_slots", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_doctor_day_slots_doctor_date", columnNames = {"doctorId", "slotDate"})
+}, indexes = {
+        @Index(name = "idx_doctor_day_slots_date", columnList = "slotDate")
+})
+public class DoctorDaySlots {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private Long doctorId;
+    private LocalDate slotDate;
+    private long bookedMask;
+}
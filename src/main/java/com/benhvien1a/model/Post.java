@@ -15,7 +15,8 @@ import java.time.LocalDateTime;
         @Index(name = "idx_post_status", columnList = "status"),
         @Index(name = "idx_post_type", columnList = "type"),
         @Index(name = "idx_post_title", columnList = "title"),
-        @Index(name = "idx_post_publish_at", columnList = "publishAt")
+        @Index(name = "idx_post_publish_at", columnList = "publishAt"),
+        @Index(name = "idx_post_status_publish_at", columnList = "status, publishAt")
 })
 public class Post {
     @Id
@@ -27,11 +28,19 @@ public class Post {
     @Column(columnDefinition = "TEXT")
     private String content;
 
+    // Tính sẵn khi ghi bài viết (PostContentUtils), đọc không cần xử lý lại content
+    @Column(length = 512)
+    private String excerpt;
+    private Integer wordCount;
+    private Integer readingTimeMinutes;
+
     @Enumerated(EnumType.STRING)
     private PostType type;
     private String thumbnailUrl;
     @Enumerated(EnumType.STRING)
     private PostStatus status;
+    // Chỉ được tăng qua PostViewCountService, không ghi đè khi cập nhật bài viết
+    @Column(updatable = false)
     private int viewCount;
     private LocalDateTime publishAt;
     private LocalDateTime createAt;
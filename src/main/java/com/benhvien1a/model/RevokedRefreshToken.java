@@ -0,0 +1,30 @@
+package com.benhvien1a.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A revoked refresh token id (jti) or token family id, kept until the last token it can match has expired.
+ * Mirrored in memory by RefreshTokenRevocations; the unique tokenId makes a rotation win only once across instances.
+ */
+@Entity
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "revoked_refresh_tokens", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_revoked_refresh_tokens_token_id", columnNames = {"tokenId"})
+}, indexes = {
+        @Index(name = "idx_revoked_refresh_tokens_expires_at", columnList = "expiresAt")
+})
+public class RevokedRefreshToken {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(length = 64, nullable = false)
+    private String tokenId;
+    private LocalDateTime expiresAt;
+    private LocalDateTime revokedAt;
+}
@@ -0,0 +1,26 @@
+package com.benhvien1a.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Single-row binary snapshot of the trending posts sliding window (see PostTrendingService).
+ */
+@Entity
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "trending_snapshots")
+public class TrendingSnapshot {
+    @Id
+    private Long id;
+
+    @Lob
+    @Column(columnDefinition = "LONGBLOB")
+    private byte[] data;
+
+    private LocalDateTime updateAt;
+}
@@ -25,5 +25,8 @@ public class User {
     @Enumerated(EnumType.STRING)
     private Role role;
 
+    // Tăng lên để thu hồi mọi access token đã cấp cho người dùng này (claim "ver")
+    @Column(name = "token_version")
+    private Integer tokenVersion;
 
 }
\ No newline at end of file
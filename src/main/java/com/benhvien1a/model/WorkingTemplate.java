@@ -0,0 +1,36 @@
+package com.benhvien1a.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Weekly working hours of a doctor, or the default hours of a department for doctors without their own.
+ * Exactly one of doctorId / departmentId is set; several templates may cover the same day (ca sáng, ca chiều).
+ */
+@Entity
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "working_templates", indexes = {
+        @Index(name = "idx_working_template_doctor_id", columnList = "doctorId"),
+        @Index(name = "idx_working_template_department_id", columnList = "departmentId")
+})
+public class WorkingTemplate {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private Long doctorId;
+    private Long departmentId;
+    @Enumerated(EnumType.STRING)
+    private DayOfWeek dayOfWeek;
+    private LocalTime startTime;
+    private LocalTime endTime;
+    private Boolean isActive;
+    private LocalDateTime createAt;
+    private LocalDateTime updateAt;
+}
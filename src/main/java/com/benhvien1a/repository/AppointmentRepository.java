@@ -2,16 +2,48 @@ package com.benhvien1a.repository;
 
 import com.benhvien1a.model.Appointment;
 import com.benhvien1a.model.AppointmentStatus;
+import com.benhvien1a.repository.projection.AppointmentExportRow;
+import com.benhvien1a.repository.projection.SlotCount;
+import com.benhvien1a.util.RowExporter;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
 @Repository
 public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
     Page<Appointment> findAll(Pageable pageable);
 
     @Query("SELECT a FROM Appointment a WHERE (:status IS NULL OR a.status = :status) AND (:fullName IS NULL OR a.fullName LIKE %:fullName%)")
     Page<Appointment> findByStatusAndFullName(AppointmentStatus status, String fullName, Pageable pageable);
+
+    // Keyset pagination: không dùng OFFSET và không chạy COUNT(*)
+    @Query("SELECT a FROM Appointment a WHERE (:status IS NULL OR a.status = :status) AND (:fullName IS NULL OR a.fullName LIKE %:fullName%) AND (:afterCreatedAt IS NULL OR a.createdAt < :afterCreatedAt OR (a.createdAt = :afterCreatedAt AND a.id < :afterId)) ORDER BY a.createdAt DESC, a.id DESC")
+    Slice<Appointment> findByStatusAndFullNameAfter(AppointmentStatus status, String fullName, LocalDateTime afterCreatedAt, Long afterId, Pageable pageable);
+
+    // Đối soát bộ đếm sức chứa slot khi khởi động (chỉ lịch không gắn bác sĩ, chưa huỷ)
+    @Query("SELECT a.date AS date, a.timeSlot AS timeSlot, COUNT(a) AS total FROM Appointment a "
+            + "WHERE a.date >= :from AND a.timeSlot IS NOT NULL AND a.doctorId IS NULL AND a.status <> com.benhvien1a.model.AppointmentStatus.CANCELLED "
+            + "GROUP BY a.date, a.timeSlot")
+    List<SlotCount> countOpenSlotsFrom(LocalDate from);
+
+    // Export: đọc tuần tự bằng cursor phía server, không nạp entity vào persistence context
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = RowExporter.STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT a.id AS id, a.fullName AS fullName, a.email AS email, a.phone AS phone, a.status AS status, a.date AS date, "
+            + "a.timeSlot AS timeSlot, a.note AS note, a.createdAt AS createdAt, a.updatedAt AS updatedAt "
+            + "FROM Appointment a WHERE (:status IS NULL OR a.status = :status) ORDER BY a.id")
+    Stream<AppointmentExportRow> streamForExport(AppointmentStatus status);
 }
\ No newline at end of file
@@ -1,16 +1,29 @@
 package com.benhvien1a.repository;
 
 import com.benhvien1a.model.Department;
+import com.benhvien1a.repository.projection.DepartmentSummary;
+import com.benhvien1a.repository.projection.ListVersion;
+import com.benhvien1a.repository.projection.SitemapEntry;
+import com.benhvien1a.util.RowExporter;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface DepartmentRepository extends JpaRepository<Department, Long> {
+    // Chỉ chọn các trường hiển thị thẻ khoa, không tải cột description
+    String SUMMARY_SELECT = "SELECT d.id AS id, d.name AS name, d.slug AS slug, d.thumbnail AS thumbnail, d.isActive AS isActive FROM Department d ";
+
     boolean existsBySlug(String slug);
     Optional<Department> findBySlug(String slug);
 
@@ -20,4 +33,30 @@ public interface DepartmentRepository extends JpaRepository<Department, Long> {
 
     @Query("SELECT d FROM Department d WHERE (:name IS NULL OR d.name LIKE %:name%) AND (:isActive IS NULL OR d.isActive = :isActive)")
     Page<Department> findByNameAndIsActive(String name, Boolean isActive, Pageable pageable);
-}
\ No newline at end of file
+
+    @Query(value = SUMMARY_SELECT + "WHERE d.isActive = true",
+            countQuery = "SELECT COUNT(d) FROM Department d WHERE d.isActive = true")
+    Page<DepartmentSummary> findActiveSummaries(Pageable pageable);
+
+    // Phiên bản tổng hợp của danh sách (MAX(updateAt) + COUNT) dùng làm ETag
+    @Query("SELECT MAX(d.updateAt) AS lastUpdateAt, COUNT(d) AS total FROM Department d WHERE d.isActive = true")
+    ListVersion findActiveVersion();
+
+    @Query("SELECT d.updateAt FROM Department d WHERE d.slug = :slug")
+    Optional<LocalDateTime> findUpdateAtBySlug(String slug);
+
+    // Keyset pagination: không dùng OFFSET và không chạy COUNT(*)
+    @Query("SELECT d FROM Department d WHERE (:name IS NULL OR d.name LIKE %:name%) AND (:isActive IS NULL OR d.isActive = :isActive) AND (:afterId IS NULL OR d.id < :afterId) ORDER BY d.id DESC")
+    Slice<Department> findByNameAndIsActiveAfter(String name, Boolean isActive, Long afterId, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "WHERE d.isActive = true AND (:afterId IS NULL OR d.id < :afterId) ORDER BY d.id DESC")
+    Slice<DepartmentSummary> findActiveSummariesAfter(Long afterId, Pageable pageable);
+
+    // Sitemap: chỉ đọc slug và thời điểm cập nhật
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = RowExporter.STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT d.slug AS slug, d.updateAt AS updateAt FROM Department d WHERE d.isActive = true ORDER BY d.id")
+    Stream<SitemapEntry> streamActiveSitemapEntries();
+}
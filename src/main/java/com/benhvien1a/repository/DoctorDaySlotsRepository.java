@@ -0,0 +1,34 @@
+package com.benhvien1a.repository;
+
+import com.benhvien1a.model.DoctorDaySlots;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DoctorDaySlotsRepository extends JpaRepository<DoctorDaySlots, Long> {
+    List<DoctorDaySlots> findBySlotDateGreaterThanEqual(LocalDate from);
+
+    // Bật bit của slot trong một câu UPDATE nguyên tử (đọc bản mới nhất, không theo snapshot của transaction);
+    // 0 dòng nghĩa là chưa có dòng cho ngày này hoặc slot đã có người đặt.
+    // Cộng/trừ thay cho OR/AND-NOT vì điều kiện đã đảm bảo trạng thái bit, và giữ được bit 63 của BIGINT có dấu
+    @Modifying
+    @Query("UPDATE DoctorDaySlots s SET s.bookedMask = s.bookedMask + :bit "
+            + "WHERE s.doctorId = :doctorId AND s.slotDate = :slotDate AND bitand(s.bookedMask, cast(:bit as Long)) = 0")
+    int setBookedBit(Long doctorId, LocalDate slotDate, long bit);
+
+    @Modifying
+    @Query("UPDATE DoctorDaySlots s SET s.bookedMask = s.bookedMask - :bit "
+            + "WHERE s.doctorId = :doctorId AND s.slotDate = :slotDate AND bitand(s.bookedMask, cast(:bit as Long)) <> 0")
+    int clearBookedBit(Long doctorId, LocalDate slotDate, long bit);
+
+    // Tạo dòng trống nếu chưa có; trùng khoá duy nhất (instance khác vừa tạo) thì bỏ qua thay vì lỗi
+    @Modifying
+    @Query(value = "INSERT INTO doctor_day_slots (doctor_id, slot_date, booked_mask) VALUES (:doctorId, :slotDate, 0) "
+            + "ON DUPLICATE KEY UPDATE id = id", nativeQuery = true)
+    int insertIfAbsent(Long doctorId, LocalDate slotDate);
+}
@@ -2,25 +2,60 @@ package com.benhvien1a.repository;
 
 import com.benhvien1a.model.Doctor;
 import com.benhvien1a.model.Position;
+import com.benhvien1a.repository.projection.DoctorFacetRow;
+import com.benhvien1a.repository.projection.DoctorSummary;
+import com.benhvien1a.repository.projection.ListVersion;
+import com.benhvien1a.repository.projection.DoctorExportRow;
+import com.benhvien1a.repository.projection.SitemapEntry;
+import com.benhvien1a.util.RowExporter;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface DoctorRepository extends JpaRepository<Doctor, Long> {
+    // Chỉ chọn các trường hiển thị thẻ bác sĩ, không tải cột description
+    String SUMMARY_SELECT = "SELECT d.id AS id, d.fullName AS fullName, d.slug AS slug, d.avatarUrl AS avatarUrl, d.position AS position, "
+            + "d.isActive AS isActive, dep.id AS departmentId, dep.name AS departmentName, dep.slug AS departmentSlug, "
+            + "CASE WHEN d.updateAt IS NULL OR dep.updateAt > d.updateAt THEN dep.updateAt ELSE d.updateAt END AS lastUpdateAt "
+            + "FROM Doctor d LEFT JOIN d.department dep ";
+
     boolean existsBySlug(String slug);
+
+    // Mọi truy vấn trả về entity Doctor đều nạp khoa trong cùng câu lệnh (department là LAZY)
+    @EntityGraph(attributePaths = "department")
+    Optional<Doctor> findById(Long id);
+
+    @EntityGraph(attributePaths = "department")
     Optional<Doctor> findBySlug(String slug);
 
+    @EntityGraph(attributePaths = "department")
     Page<Doctor> findAll(Pageable pageable);
+
+    @EntityGraph(attributePaths = "department")
     Page<Doctor> findByIsActiveTrue(Pageable pageable);
 
-    @Query("""
-    SELECT d FROM Doctor d
+    @Query(value = """
+    SELECT d FROM Doctor d LEFT JOIN FETCH d.department
+    WHERE (:fullName IS NULL OR LOWER(d.fullName) LIKE LOWER(CONCAT('%', :fullName, '%')))
+    AND (:isActive IS NULL OR d.isActive = :isActive)
+    AND (:departmentId IS NULL OR d.department.id = :departmentId)
+    AND (:position IS NULL OR d.position = :position)
+""", countQuery = """
+    SELECT COUNT(d) FROM Doctor d
     WHERE (:fullName IS NULL OR LOWER(d.fullName) LIKE LOWER(CONCAT('%', :fullName, '%')))
     AND (:isActive IS NULL OR d.isActive = :isActive)
     AND (:departmentId IS NULL OR d.department.id = :departmentId)
@@ -33,6 +68,82 @@ public interface DoctorRepository extends JpaRepository<Doctor, Long> {
             @org.springframework.lang.Nullable Position position,
             Pageable pageable);
 
-    @Query("SELECT d FROM Doctor d WHERE d.department.slug = :slug AND d.isActive = true")
+    // Nạp toàn bộ bác sĩ đang hoạt động kèm khoa cho DoctorDirectory
+    @Query("SELECT d FROM Doctor d LEFT JOIN FETCH d.department WHERE d.isActive = true")
+    List<Doctor> findAllActiveWithDepartment();
+
+    // Nạp một trang bác sĩ theo danh sách id lấy từ DoctorFacetIndex
+    @Query("SELECT d FROM Doctor d LEFT JOIN FETCH d.department WHERE d.id IN :ids")
+    List<Doctor> findAllWithDepartmentByIdIn(Collection<Long> ids);
+
+    // Chỉ các thuộc tính dùng để lọc, cho DoctorFacetIndex
+    @Query("SELECT d.id AS id, d.isActive AS isActive, d.position AS position, d.department.id AS departmentId FROM Doctor d")
+    List<DoctorFacetRow> findAllFacetRows();
+
+    @Query(value = "SELECT d FROM Doctor d JOIN FETCH d.department dep WHERE dep.slug = :slug AND d.isActive = true",
+            countQuery = "SELECT COUNT(d) FROM Doctor d WHERE d.department.slug = :slug AND d.isActive = true")
     Page<Doctor> findByDepartmentSlug(String slug, Pageable pageable);
+
+    @Query(value = SUMMARY_SELECT + "WHERE d.isActive = true",
+            countQuery = "SELECT COUNT(d) FROM Doctor d WHERE d.isActive = true")
+    Page<DoctorSummary> findActiveSummaries(Pageable pageable);
+
+    @Query(value = SUMMARY_SELECT + "WHERE dep.slug = :slug AND d.isActive = true",
+            countQuery = "SELECT COUNT(d) FROM Doctor d WHERE d.department.slug = :slug AND d.isActive = true")
+    Page<DoctorSummary> findSummariesByDepartmentSlug(String slug, Pageable pageable);
+
+    // Phiên bản tổng hợp của danh sách dùng làm ETag; tính cả updateAt của khoa vì thẻ bác sĩ hiển thị tên khoa
+    String VERSION_SELECT = "SELECT MAX(CASE WHEN dep.updateAt > d.updateAt THEN dep.updateAt ELSE d.updateAt END) AS lastUpdateAt, "
+            + "COUNT(d) AS total FROM Doctor d LEFT JOIN d.department dep ";
+
+    @Query(VERSION_SELECT + "WHERE d.isActive = true")
+    ListVersion findActiveVersion();
+
+    @Query(VERSION_SELECT + "WHERE dep.slug = :slug AND d.isActive = true")
+    ListVersion findVersionByDepartmentSlug(String slug);
+
+    @Query("SELECT CASE WHEN dep.updateAt > d.updateAt THEN dep.updateAt ELSE d.updateAt END FROM Doctor d LEFT JOIN d.department dep WHERE d.slug = :slug")
+    Optional<LocalDateTime> findUpdateAtBySlug(String slug);
+
+    // Keyset pagination: không dùng OFFSET và không chạy COUNT(*)
+    @Query("""
+    SELECT d FROM Doctor d LEFT JOIN FETCH d.department
+    WHERE (:fullName IS NULL OR LOWER(d.fullName) LIKE LOWER(CONCAT('%', :fullName, '%')))
+    AND (:isActive IS NULL OR d.isActive = :isActive)
+    AND (:departmentId IS NULL OR d.department.id = :departmentId)
+    AND (:position IS NULL OR d.position = :position)
+    AND (:afterId IS NULL OR d.id < :afterId)
+    ORDER BY d.id DESC
+""")
+    Slice<Doctor> findByFullNameAndIsActiveAndPositionAndDepartmentIdAfter(
+            @org.springframework.lang.Nullable String fullName,
+            @org.springframework.lang.Nullable Boolean isActive,
+            @org.springframework.lang.Nullable Long departmentId,
+            @org.springframework.lang.Nullable Position position,
+            @org.springframework.lang.Nullable Long afterId,
+            Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "WHERE d.isActive = true AND (:afterId IS NULL OR d.id < :afterId) ORDER BY d.id DESC")
+    Slice<DoctorSummary> findActiveSummariesAfter(Long afterId, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "WHERE dep.slug = :slug AND d.isActive = true AND (:afterId IS NULL OR d.id < :afterId) ORDER BY d.id DESC")
+    Slice<DoctorSummary> findSummariesByDepartmentSlugAfter(String slug, Long afterId, Pageable pageable);
+
+    // Export: đọc tuần tự bằng cursor phía server, không nạp entity vào persistence context
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = RowExporter.STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT d.id AS id, d.fullName AS fullName, d.slug AS slug, d.position AS position, d.isActive AS isActive, "
+            + "dep.name AS departmentName, d.avatarUrl AS avatarUrl, d.createAt AS createAt, d.updateAt AS updateAt "
+            + "FROM Doctor d LEFT JOIN d.department dep ORDER BY d.id")
+    Stream<DoctorExportRow> streamAllForExport();
+
+    // Sitemap: chỉ đọc slug và thời điểm cập nhật
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = RowExporter.STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT d.slug AS slug, d.updateAt AS updateAt FROM Doctor d WHERE d.isActive = true ORDER BY d.id")
+    Stream<SitemapEntry> streamActiveSitemapEntries();
 }
\ No newline at end of file
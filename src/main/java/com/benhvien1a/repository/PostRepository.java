@@ -3,20 +3,43 @@ package com.benhvien1a.repository;
 import com.benhvien1a.model.Post;
 import com.benhvien1a.model.PostStatus;
 import com.benhvien1a.model.PostType;
+import com.benhvien1a.repository.projection.PostListVersion;
+import com.benhvien1a.repository.projection.PostSummary;
+import com.benhvien1a.repository.projection.PostExportRow;
+import com.benhvien1a.repository.projection.SitemapEntry;
+import com.benhvien1a.util.RowExporter;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface PostRepository extends JpaRepository<Post, Long> {
+    // Chỉ chọn các trường hiển thị thẻ bài viết, không tải cột content
+    String SUMMARY_SELECT = "SELECT p.id AS id, p.title AS title, p.slug AS slug, p.excerpt AS excerpt, p.readingTimeMinutes AS readingTimeMinutes, "
+            + "p.type AS type, p.thumbnailUrl AS thumbnailUrl, p.status AS status, p.viewCount AS viewCount, p.publishAt AS publishAt, p.updateAt AS updateAt FROM Post p ";
+    // Keyset theo (publishAt, id) giảm dần; bài chưa có publishAt nằm cuối (NULL xếp sau khi DESC) và được duyệt theo id
+    String AFTER_PUBLISH_AT = "(:afterId IS NULL "
+            + "OR (:afterPublishAt IS NULL AND p.publishAt IS NULL AND p.id < :afterId) "
+            + "OR (:afterPublishAt IS NOT NULL AND (p.publishAt < :afterPublishAt OR (p.publishAt = :afterPublishAt AND p.id < :afterId) OR p.publishAt IS NULL))) "
+            + "ORDER BY p.publishAt DESC, p.id DESC";
+
     boolean existsBySlug(String slug);
     Optional<Post> findBySlugAndStatus(String slug, PostStatus status);
 
     Page<Post> findAll(Pageable pageable);
+    List<Post> findByExcerptIsNullAndIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
     Page<Post> findByStatus(PostStatus status, Pageable pageable);
 
     @Query("SELECT p FROM Post p WHERE (:title IS NULL OR p.title LIKE %:title%) AND (:status IS NULL OR p.status = :status) AND (:type IS NULL OR p.type = :type)")
@@ -24,4 +47,53 @@ public interface PostRepository extends JpaRepository<Post, Long> {
 
     @Query("SELECT p FROM Post p WHERE p.type = :type")
     Page<Post> findByType(PostType type, Pageable pageable);
-}
\ No newline at end of file
+
+    @Query(value = SUMMARY_SELECT + "WHERE p.status = :status",
+            countQuery = "SELECT COUNT(p) FROM Post p WHERE p.status = :status")
+    Page<PostSummary> findSummariesByStatus(PostStatus status, Pageable pageable);
+
+    @Query(value = SUMMARY_SELECT + "WHERE p.type = :type",
+            countQuery = "SELECT COUNT(p) FROM Post p WHERE p.type = :type")
+    Page<PostSummary> findSummariesByType(PostType type, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "WHERE p.id IN :ids AND p.status = :status")
+    List<PostSummary> findSummariesByIdInAndStatus(Collection<Long> ids, PostStatus status);
+
+    // Phiên bản tổng hợp của danh sách (MAX(updateAt) + COUNT + SUM(viewCount)) dùng làm ETag
+    @Query("SELECT MAX(p.updateAt) AS lastUpdateAt, COUNT(p) AS total, SUM(p.viewCount) AS totalViews FROM Post p WHERE p.status = :status")
+    PostListVersion findVersionByStatus(PostStatus status);
+
+    @Query("SELECT MAX(p.updateAt) AS lastUpdateAt, COUNT(p) AS total, SUM(p.viewCount) AS totalViews FROM Post p WHERE p.type = :type")
+    PostListVersion findVersionByType(PostType type);
+
+    // Keyset pagination: không dùng OFFSET và không chạy COUNT(*)
+    @Query("SELECT p FROM Post p WHERE (:title IS NULL OR p.title LIKE %:title%) AND (:status IS NULL OR p.status = :status) AND (:type IS NULL OR p.type = :type) AND " + AFTER_PUBLISH_AT)
+    Slice<Post> findByTitleAndStatusAndTypeAfter(String title, PostStatus status, PostType type, LocalDateTime afterPublishAt, Long afterId, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "WHERE p.status = :status AND " + AFTER_PUBLISH_AT)
+    Slice<PostSummary> findSummariesByStatusAfter(PostStatus status, LocalDateTime afterPublishAt, Long afterId, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "WHERE p.type = :type AND " + AFTER_PUBLISH_AT)
+    Slice<PostSummary> findSummariesByTypeAfter(PostType type, LocalDateTime afterPublishAt, Long afterId, Pageable pageable);
+
+    // Export: đọc tuần tự bằng cursor phía server, không nạp entity vào persistence context
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = RowExporter.STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p.id AS id, p.title AS title, p.slug AS slug, p.type AS type, p.status AS status, p.excerpt AS excerpt, "
+            + "p.wordCount AS wordCount, p.viewCount AS viewCount, p.publishAt AS publishAt, p.createAt AS createAt, p.updateAt AS updateAt "
+            + "FROM Post p ORDER BY p.id")
+    Stream<PostExportRow> streamAllForExport();
+
+    @Query(SUMMARY_SELECT + "WHERE p.status = :status AND p.type = :type ORDER BY p.publishAt DESC, p.id DESC")
+    List<PostSummary> findLatestSummaries(PostStatus status, PostType type, Pageable pageable);
+
+    // Sitemap: chỉ đọc slug và thời điểm cập nhật
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = RowExporter.STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p.slug AS slug, p.updateAt AS updateAt FROM Post p WHERE p.status = :status AND p.type = :type ORDER BY p.id")
+    Stream<SitemapEntry> streamSitemapEntries(PostStatus status, PostType type);
+}
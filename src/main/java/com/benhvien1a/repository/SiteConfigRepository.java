@@ -6,7 +6,12 @@
 package com.benhvien1a.repository;
 
 import com.benhvien1a.model.SiteConfig;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
 
 /*
  * @description
@@ -15,4 +20,10 @@ import org.springframework.data.jpa.repository.JpaRepository;
  * @version 1.0
  */
 public interface SiteConfigRepository extends JpaRepository<SiteConfig, Long> {
+    // Nạp danh sách banner cùng cấu hình: open-in-view đã tắt nên không thể nạp lười khi serialize
+    @EntityGraph(attributePaths = "bannerImages")
+    Optional<SiteConfig> findById(Long id);
+
+    @Query("SELECT s.updateAt FROM SiteConfig s WHERE s.id = :id")
+    Optional<LocalDateTime> findUpdateAtById(Long id);
 }
@@ -0,0 +1,9 @@
+package com.benhvien1a.repository;
+
+import com.benhvien1a.model.TrendingSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface TrendingSnapshotRepository extends JpaRepository<TrendingSnapshot, Long> {
+}
@@ -1,11 +1,30 @@
 package com.benhvien1a.repository;
 
 import com.benhvien1a.model.User;
+import com.benhvien1a.repository.projection.UserTokenVersion;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     User findByEmail(String email);
     boolean existsByEmail(String email);
+
+    @Query("SELECT u.email AS email, u.tokenVersion AS tokenVersion FROM User u")
+    List<UserTokenVersion> findAllTokenVersions();
+
+    @Modifying
+    @Query("UPDATE User u SET u.tokenVersion = COALESCE(u.tokenVersion, 0) + 1 WHERE u.email = :email")
+    int incrementTokenVersion(String email);
+
+    // Chỉ thay mã băm nếu mật khẩu chưa bị đổi trong lúc băm lại
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.id = :id AND u.password = :expected")
+    int replacePasswordHash(Long id, String expected, String password);
 }
\ No newline at end of file
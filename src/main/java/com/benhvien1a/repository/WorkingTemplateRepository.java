@@ -0,0 +1,16 @@
+package com.benhvien1a.repository;
+
+import com.benhvien1a.model.WorkingTemplate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface WorkingTemplateRepository extends JpaRepository<WorkingTemplate, Long> {
+    List<WorkingTemplate> findByIsActiveTrue();
+
+    List<WorkingTemplate> findByDoctorIdOrderByDayOfWeekAscStartTimeAsc(Long doctorId);
+
+    List<WorkingTemplate> findByDepartmentIdOrderByDayOfWeekAscStartTimeAsc(Long departmentId);
+}
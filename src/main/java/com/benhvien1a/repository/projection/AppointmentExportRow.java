@@ -0,0 +1,22 @@
+package com.benhvien1a.repository.projection;
+
+import com.benhvien1a.model.AppointmentStatus;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Flat, unmanaged row of an appointment for streaming export.
+ */
+public interface AppointmentExportRow {
+    Long getId();
+    String getFullName();
+    String getEmail();
+    String getPhone();
+    AppointmentStatus getStatus();
+    LocalDate getDate();
+    String getTimeSlot();
+    String getNote();
+    LocalDateTime getCreatedAt();
+    LocalDateTime getUpdatedAt();
+}
@@ -0,0 +1,12 @@
+package com.benhvien1a.repository.projection;
+
+/**
+ * Card fields of a department for list endpoints; never loads the description column.
+ */
+public interface DepartmentSummary {
+    Long getId();
+    String getName();
+    String getSlug();
+    String getThumbnail();
+    Boolean getIsActive();
+}
@@ -0,0 +1,20 @@
+package com.benhvien1a.repository.projection;
+
+import com.benhvien1a.model.Position;
+
+import java.time.LocalDateTime;
+
+/**
+ * Flat, unmanaged row of a doctor for streaming export.
+ */
+public interface DoctorExportRow {
+    Long getId();
+    String getFullName();
+    String getSlug();
+    Position getPosition();
+    Boolean getIsActive();
+    String getDepartmentName();
+    String getAvatarUrl();
+    LocalDateTime getCreateAt();
+    LocalDateTime getUpdateAt();
+}
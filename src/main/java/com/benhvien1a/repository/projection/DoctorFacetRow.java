@@ -0,0 +1,13 @@
+package com.benhvien1a.repository.projection;
+
+import com.benhvien1a.model.Position;
+
+/**
+ * Filterable attributes of a doctor, used to build DoctorFacetIndex.
+ */
+public interface DoctorFacetRow {
+    Long getId();
+    Boolean getIsActive();
+    Position getPosition();
+    Long getDepartmentId();
+}
@@ -0,0 +1,27 @@
+package com.benhvien1a.repository.projection;
+
+import com.benhvien1a.model.Position;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.LocalDateTime;
+
+/**
+ * Card fields of a doctor for list endpoints; never loads the description column.
+ */
+public interface DoctorSummary {
+    Long getId();
+    String getFullName();
+    String getSlug();
+    String getAvatarUrl();
+    Position getPosition();
+    Boolean getIsActive();
+    Long getDepartmentId();
+    String getDepartmentName();
+    String getDepartmentSlug();
+
+    /**
+     * Latest update of the doctor or its department; list version only, not part of the card.
+     */
+    @JsonIgnore
+    LocalDateTime getLastUpdateAt();
+}
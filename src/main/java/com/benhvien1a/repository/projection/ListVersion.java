@@ -0,0 +1,11 @@
+package com.benhvien1a.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * Aggregate version of a list filter: latest update time and row count, used as an ETag source.
+ */
+public interface ListVersion {
+    LocalDateTime getLastUpdateAt();
+    Long getTotal();
+}
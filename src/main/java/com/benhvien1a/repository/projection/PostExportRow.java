@@ -0,0 +1,23 @@
+package com.benhvien1a.repository.projection;
+
+import com.benhvien1a.model.PostStatus;
+import com.benhvien1a.model.PostType;
+
+import java.time.LocalDateTime;
+
+/**
+ * Flat, unmanaged row of a post for streaming export.
+ */
+public interface PostExportRow {
+    Long getId();
+    String getTitle();
+    String getSlug();
+    PostType getType();
+    PostStatus getStatus();
+    String getExcerpt();
+    Integer getWordCount();
+    int getViewCount();
+    LocalDateTime getPublishAt();
+    LocalDateTime getCreateAt();
+    LocalDateTime getUpdateAt();
+}
@@ -0,0 +1,9 @@
+package com.benhvien1a.repository.projection;
+
+/**
+ * List version of a post filter. Post cards show viewCount, which changes without touching updateAt,
+ * so the summed view count is part of the version too.
+ */
+public interface PostListVersion extends ListVersion {
+    Long getTotalViews();
+}
@@ -0,0 +1,23 @@
+package com.benhvien1a.repository.projection;
+
+import com.benhvien1a.model.PostStatus;
+import com.benhvien1a.model.PostType;
+
+import java.time.LocalDateTime;
+
+/**
+ * Card fields of a post for list endpoints; never loads the content column.
+ */
+public interface PostSummary {
+    Long getId();
+    String getTitle();
+    String getSlug();
+    String getExcerpt();
+    Integer getReadingTimeMinutes();
+    PostType getType();
+    String getThumbnailUrl();
+    PostStatus getStatus();
+    int getViewCount();
+    LocalDateTime getPublishAt();
+    LocalDateTime getUpdateAt();
+}
@@ -0,0 +1,11 @@
+package com.benhvien1a.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * Slug and last modification time of a public page, for sitemap generation.
+ */
+public interface SitemapEntry {
+    String getSlug();
+    LocalDateTime getUpdateAt();
+}
@@ -0,0 +1,12 @@
+package com.benhvien1a.repository.projection;
+
+import java.time.LocalDate;
+
+/**
+ * Number of appointments holding one (date, timeSlot) pair.
+ */
+public interface SlotCount {
+    LocalDate getDate();
+    String getTimeSlot();
+    Long getTotal();
+}
@@ -0,0 +1,9 @@
+package com.benhvien1a.repository.projection;
+
+/**
+ * Email and current token version of a user, used to build UserTokenVersions.
+ */
+public interface UserTokenVersion {
+    String getEmail();
+    Integer getTokenVersion();
+}
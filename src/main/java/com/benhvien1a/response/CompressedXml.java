@@ -0,0 +1,17 @@
+package com.benhvien1a.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Pre-generated, gzip-compressed XML document (sitemap or RSS feed).
+ */
+@Getter
+@AllArgsConstructor
+public class CompressedXml {
+    private final byte[] gzip;
+    private final String eTag;
+    private final LocalDateTime lastModified;
+}
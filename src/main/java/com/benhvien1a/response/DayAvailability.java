@@ -0,0 +1,19 @@
+package com.benhvien1a.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Open and still free slots of one day, summed over the doctors of a department.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DayAvailability {
+    private LocalDate date;
+    private int openSlots;
+    private int freeSlots;
+}
@@ -0,0 +1,22 @@
+package com.benhvien1a.response;
+
+import com.benhvien1a.model.Position;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Facet counts for a doctor filter. Each facet is counted with the other selected filters applied
+ * but not its own, so the client can show "12 surgeons, 4 radiologists" next to every option.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DoctorFacets {
+    private int total;
+    private Map<Long, Integer> departments;
+    private Map<Position, Integer> positions;
+    private Map<Boolean, Integer> active;
+}
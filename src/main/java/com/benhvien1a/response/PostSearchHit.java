@@ -0,0 +1,23 @@
+package com.benhvien1a.response;
+
+import com.benhvien1a.model.PostStatus;
+import com.benhvien1a.model.PostType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PostSearchHit {
+    private Long id;
+    private String title;
+    private String slug;
+    private PostType type;
+    private PostStatus status;
+    private String thumbnailUrl;
+    private LocalDateTime publishAt;
+    private double score;
+}
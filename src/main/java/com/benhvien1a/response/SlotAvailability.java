@@ -0,0 +1,16 @@
+package com.benhvien1a.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlotAvailability {
+    private LocalTime startTime;
+    private LocalTime endTime;
+    private boolean available;
+}
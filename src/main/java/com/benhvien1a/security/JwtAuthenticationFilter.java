@@ -1,14 +1,17 @@
 package com.benhvien1a.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -16,14 +19,29 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
 
+/**
+ * Authenticates Bearer tokens. In "claims" mode (default) the Authentication is built from the verified
+ * claims and checked against UserTokenVersions, with no database access; "database" mode loads the user
+ * through UserDetailsService on every request as before.
+ */
 @Component
-@RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
     private final JwtUtil jwtUtil;
     private final UserDetailsService userDetailsService;
+    private final UserTokenVersions userTokenVersions;
+    private final boolean claimsOnly;
+
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, UserDetailsService userDetailsService, UserTokenVersions userTokenVersions,
+                                   @Value("${jwt.authentication-mode:claims}") String authenticationMode) {
+        this.jwtUtil = jwtUtil;
+        this.userDetailsService = userDetailsService;
+        this.userTokenVersions = userTokenVersions;
+        this.claimsOnly = !"database".equalsIgnoreCase(authenticationMode);
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
@@ -42,11 +60,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             String token = authHeader.substring(7);
             logger.debug("Extracted token: {}", token.substring(0, Math.min(10, token.length())) + "...");
 
-            if (jwtUtil.validateToken(token)) {
-                String email = jwtUtil.getEmailFromToken(token);
-                logger.debug("Token is valid for email: {}", email);
-
-                UserDetails userDetails = userDetailsService.loadUserByUsername(email);
+            Claims claims = jwtUtil.getValidClaims(token);
+            // Refresh token chỉ dùng cho /api/v1/auth/refresh, không được dùng thay access token
+            if (claims != null && JwtUtil.isRefreshToken(claims)) {
+                claims = null;
+            }
+            UserDetails userDetails = null;
+            if (claims != null) {
+                logger.debug("Token is valid for email: {}", claims.getSubject());
+                userDetails = claimsOnly ? fromClaims(claims) : userDetailsService.loadUserByUsername(claims.getSubject());
+                if (userDetails == null) {
+                    logger.warn("Token revoked for email: {}", claims.getSubject());
+                }
+            }
+            if (userDetails != null) {
+                String email = userDetails.getUsername();
                 logger.debug("User loaded: {}, authorities: {}", email, userDetails.getAuthorities());
 
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
@@ -54,7 +82,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authentication);
                 logger.debug("Authentication set in SecurityContext");
-            } else {
+            } else if (claims == null) {
                 logger.warn("Token validation failed");
             }
         } catch (Exception e) {
@@ -63,4 +91,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * Principal built from the token alone, or null if the token version is no longer current.
+     */
+    private UserDetails fromClaims(Claims claims) {
+        String email = claims.getSubject();
+        String role = claims.get(JwtUtil.ROLE_CLAIM, String.class);
+        if (email == null || role == null || !userTokenVersions.isCurrent(email, JwtUtil.getVersion(claims))) {
+            return null;
+        }
+        return new User(email, "", List.of(new SimpleGrantedAuthority(role)));
+    }
 }
\ No newline at end of file
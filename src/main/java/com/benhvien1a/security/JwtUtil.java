@@ -1,17 +1,35 @@
 package com.benhvien1a.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
+import io.jsonwebtoken.io.Decoders;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.crypto.spec.SecretKeySpec;
+import java.security.Key;
+import java.time.Duration;
 import java.util.Date;
+import java.util.UUID;
 
 
+/**
+ * Issues and verifies JWTs. The HMAC key and the parser are built once; verified tokens are cached
+ * until their expiry, so a token repeated across requests is verified and decoded only the first time.
+ */
 @Component
 public class JwtUtil {
     private static final Logger logger = LoggerFactory.getLogger(JwtUtil.class);
+    public static final String ROLE_CLAIM = "role";
+    public static final String VERSION_CLAIM = "ver";
+    public static final String TYPE_CLAIM = "typ";
+    public static final String FAMILY_CLAIM = "fam";
+    public static final String REFRESH_TYPE = "refresh";
 
     @Value("${jwt.secret}")
     private String secret;
@@ -20,22 +38,83 @@ public class JwtUtil {
     private long expiration;
 
     @Value("${jwt.refresh.expiration}")
-    private long resetPasswordExpiration;
+    private long refreshExpiration;
+
+    @Value("${jwt.verified-cache.max-entries:10000}")
+    private long verifiedCacheMaxEntries;
+
+    private Key signingKey;
+    private JwtParser parser;
+    // Khoá là chính chuỗi token (hash của String + so sánh equals đầy đủ), không chỉ phần chữ ký
+    private Cache<String, Claims> verifiedTokens;
+
+    @PostConstruct
+    void init() {
+        // Giống signWith(alg, String) trước đây: secret là chuỗi base64
+        signingKey = new SecretKeySpec(Decoders.BASE64.decode(secret), SignatureAlgorithm.HS256.getJcaName());
+        parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheMaxEntries)
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String token, Claims claims, long currentTime) {
+                        return untilExpiry(claims).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String token, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
 
     /**
      * Generate a JWT token for the user.
      */
-    public String generateToken(String email, String role) {
+    public String generateToken(String email, String role, int tokenVersion) {
         logger.debug("Generating token for email: {}, role: {}", email, role);
         return Jwts.builder()
                 .setSubject(email)
-                .claim("role", role)
+                .claim(ROLE_CLAIM, role)
+                .claim(VERSION_CLAIM, tokenVersion)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(SignatureAlgorithm.HS256, secret)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    /**
+     * Generate a refresh token. Every token gets its own id (jti); tokens rotated from one login share the family id.
+     */
+    public String generateRefreshToken(String email, String role, int tokenVersion, String familyId) {
+        logger.debug("Generating refresh token for email: {}", email);
+        return Jwts.builder()
+                .setSubject(email)
+                .setId(UUID.randomUUID().toString())
+                .claim(TYPE_CLAIM, REFRESH_TYPE)
+                .claim(FAMILY_CLAIM, familyId)
+                .claim(ROLE_CLAIM, role)
+                .claim(VERSION_CLAIM, tokenVersion)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + refreshExpiration))
+                .signWith(signingKey, SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    public long getRefreshExpiration() {
+        return refreshExpiration;
+    }
+
+    public static boolean isRefreshToken(Claims claims) {
+        return REFRESH_TYPE.equals(claims.get(TYPE_CLAIM, String.class));
+    }
+
     /**
      * Generate a JWT token for password reset.
      */
@@ -44,8 +123,8 @@ public class JwtUtil {
         return Jwts.builder()
                 .setSubject(email)
                 .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + resetPasswordExpiration))
-                .signWith(SignatureAlgorithm.HS256, secret)
+                .setExpiration(new Date(System.currentTimeMillis() + refreshExpiration))
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
@@ -60,33 +139,57 @@ public class JwtUtil {
      * Extract role from the JWT token.
      */
     public String getRoleFromToken(String token) {
-        return getClaims(token).get("role", String.class);
+        return getClaims(token).get(ROLE_CLAIM, String.class);
     }
 
     /**
-     * Validate the JWT token.
+     * Token version the token was issued with; tokens issued before versioning count as version 0.
      */
-    public boolean validateToken(String token) {
+    public static int getVersion(Claims claims) {
+        Integer version = claims.get(VERSION_CLAIM, Integer.class);
+        return version != null ? version : 0;
+    }
+
+    /**
+     * Parse and verify the token once, returning its claims, or null if it is expired or invalid.
+     */
+    public Claims getValidClaims(String token) {
+        Claims cached = verifiedTokens.getIfPresent(token);
+        if (cached != null) {
+            return cached;
+        }
         try {
             Claims claims = getClaims(token);
             logger.debug("Token validated for email: {}", claims.getSubject());
-            return true;
+            if (claims.getExpiration() != null) {
+                verifiedTokens.put(token, claims);
+            }
+            return claims;
         } catch (ExpiredJwtException ex) {
             logger.warn("Token expired: {}", ex.getMessage());
-            return false;
+            return null;
         } catch (JwtException | IllegalArgumentException e) {
             logger.error("Invalid token: {}", e.getMessage());
-            return false;
+            return null;
         }
     }
 
+    /**
+     * Validate the JWT token.
+     */
+    public boolean validateToken(String token) {
+        return getValidClaims(token) != null;
+    }
+
     /**
      * Helper method to parse claims from the JWT token.
      */
     private Claims getClaims(String token) {
-        return Jwts.parser()
-                .setSigningKey(secret)
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    private static Duration untilExpiry(Claims claims) {
+        Duration remaining = Duration.ofMillis(claims.getExpiration().getTime() - System.currentTimeMillis());
+        return remaining.isNegative() ? Duration.ZERO : remaining;
     }
 }
\ No newline at end of file
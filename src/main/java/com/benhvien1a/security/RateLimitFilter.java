@@ -0,0 +1,183 @@
+package com.benhvien1a.security;
+
+import com.benhvien1a.config.RateLimitProperties;
+import com.benhvien1a.response.ApiResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Rate limiting and load shedding for the public route groups configured under "rate-limit".
+ * Each group has a per-client token bucket (keyed by client IP) and a global one; a request needs a token
+ * from both, otherwise it gets 429 with Retry-After. Groups marked shed-on-saturation are refused with 503
+ * while too many threads are already waiting for a Hikari connection, so a scraper cannot drain the pool.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+    private static final long SHED_RETRY_AFTER_SECONDS = 1;
+
+    private final RateLimitProperties properties;
+    private final DataSource dataSource;
+    private final ObjectMapper objectMapper;
+    private final List<RouteGroup> groups;
+    private volatile HikariPoolMXBean pool;
+
+    public RateLimitFilter(RateLimitProperties properties, DataSource dataSource, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.dataSource = dataSource;
+        this.objectMapper = objectMapper;
+        this.groups = properties.getGroups().stream()
+                .map(group -> new RouteGroup(group, properties))
+                .toList();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled() || "OPTIONS".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RouteGroup group = match(request);
+        if (group == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        if (group.shedOnSaturation && isPoolSaturated()) {
+            logger.debug("Shedding {} {} ({}): connection pool saturated", request.getMethod(), request.getRequestURI(), group.name);
+            reject(response, request, HttpStatus.SERVICE_UNAVAILABLE, SHED_RETRY_AFTER_SECONDS, "Server is busy, please try again shortly");
+            return;
+        }
+
+        long now = System.nanoTime();
+        // Bucket theo client trước: client vượt hạn mức không tiêu token của bucket chung
+        long wait = group.perClient != null ? group.perClient.get(request.getRemoteAddr(), group::newClientBucket).tryAcquire(now) : 0;
+        if (wait == 0 && group.global != null) {
+            wait = group.global.tryAcquire(now);
+        }
+        if (wait > 0) {
+            logger.debug("Rate limited {} {} from {} ({})", request.getMethod(), request.getRequestURI(), request.getRemoteAddr(), group.name);
+            reject(response, request, HttpStatus.TOO_MANY_REQUESTS, Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + 999_999_999L)),
+                    "Too many requests, please try again later");
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private RouteGroup match(HttpServletRequest request) {
+        PathContainer path = PathContainer.parsePath(request.getRequestURI().substring(request.getContextPath().length()));
+        for (RouteGroup group : groups) {
+            if (group.matches(request.getMethod(), path)) {
+                return group;
+            }
+        }
+        return null;
+    }
+
+    private boolean isPoolSaturated() {
+        HikariPoolMXBean mxBean = pool;
+        if (mxBean == null) {
+            mxBean = resolvePool();
+            if (mxBean == null) {
+                return false;
+            }
+        }
+        return mxBean.getThreadsAwaitingConnection() >= properties.getShedPendingThreshold();
+    }
+
+    private HikariPoolMXBean resolvePool() {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                // Pool chỉ có sau khi Hikari mở kết nối đầu tiên
+                pool = dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+            }
+        } catch (SQLException e) {
+            logger.warn("Cannot inspect connection pool: {}", e.getMessage());
+        }
+        return pool;
+    }
+
+    private void reject(HttpServletResponse response, HttpServletRequest request, HttpStatus status, long retryAfterSeconds,
+                        String message) throws IOException {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        objectMapper.writeValue(response.getOutputStream(),
+                new ApiResponse<>(false, message, null, message, ZonedDateTime.now(), request.getRequestURI()));
+    }
+
+    private static final class RouteGroup {
+        private final String name;
+        private final Set<String> methods;
+        private final List<PathPattern> patterns;
+        private final RateLimitProperties.Bucket clientBucket;
+        private final Cache<String, TokenBucket> perClient;
+        private final TokenBucket global;
+        private final boolean shedOnSaturation;
+
+        private RouteGroup(RateLimitProperties.Group group, RateLimitProperties properties) {
+            this.name = group.getName();
+            this.methods = group.getMethods().stream()
+                    .map(method -> method.toUpperCase(Locale.ROOT))
+                    .collect(Collectors.toUnmodifiableSet());
+            this.patterns = group.getPatterns().stream()
+                    .map(PathPatternParser.defaultInstance::parse)
+                    .toList();
+            this.clientBucket = group.getPerClient();
+            this.perClient = clientBucket == null ? null : Caffeine.newBuilder()
+                    .expireAfterAccess(Duration.ofMinutes(properties.getClientIdleMinutes()))
+                    .maximumSize(properties.getMaxClients())
+                    .build();
+            this.global = group.getGlobal() == null ? null
+                    : new TokenBucket(group.getGlobal().getCapacity(), group.getGlobal().getRefillPerSecond());
+            this.shedOnSaturation = group.isShedOnSaturation();
+        }
+
+        private boolean matches(String method, PathContainer path) {
+            if (!methods.isEmpty() && !methods.contains(method)) {
+                return false;
+            }
+            for (PathPattern pattern : patterns) {
+                if (pattern.matches(path)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private TokenBucket newClientBucket(String clientIp) {
+            return new TokenBucket(clientBucket.getCapacity(), clientBucket.getRefillPerSecond());
+        }
+    }
+}
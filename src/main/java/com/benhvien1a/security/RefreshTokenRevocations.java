@@ -0,0 +1,94 @@
+package com.benhvien1a.security;
+
+import com.benhvien1a.model.RevokedRefreshToken;
+import com.benhvien1a.repository.RevokedRefreshTokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Revoked refresh token ids and token families, held in memory as sets bucketed by expiry time and
+ * persisted to revoked_refresh_tokens. An id always falls in the bucket of its expiry, so adding it is a
+ * single atomic set insert, and whole buckets are dropped once every token they can match has expired.
+ * Rows written by other instances are picked up by the periodic reload.
+ */
+@Component
+public class RefreshTokenRevocations {
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenRevocations.class);
+
+    private final RevokedRefreshTokenRepository revokedRefreshTokenRepository;
+    private final long bucketMillis;
+    // Khoá = thời điểm kết thúc bucket (epoch millis)
+    private final ConcurrentSkipListMap<Long, Set<String>> buckets = new ConcurrentSkipListMap<>();
+
+    public RefreshTokenRevocations(RevokedRefreshTokenRepository revokedRefreshTokenRepository,
+                                   @Value("${jwt.refresh.revocation-bucket-minutes:60}") long bucketMinutes) {
+        this.revokedRefreshTokenRepository = revokedRefreshTokenRepository;
+        this.bucketMillis = Math.max(1, bucketMinutes) * 60_000L;
+    }
+
+    public boolean isRevoked(String tokenId) {
+        for (Set<String> bucket : buckets.tailMap(System.currentTimeMillis()).values()) {
+            if (bucket.contains(tokenId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Revoke the id until expiresAt. Returns false if it was already revoked, here or by another instance.
+     */
+    public boolean revoke(String tokenId, Instant expiresAt) {
+        if (isRevoked(tokenId)) {
+            return false;
+        }
+        try {
+            revokedRefreshTokenRepository.save(RevokedRefreshToken.builder()
+                    .tokenId(tokenId)
+                    .expiresAt(LocalDateTime.ofInstant(expiresAt, ZoneId.systemDefault()))
+                    .revokedAt(LocalDateTime.now())
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            // Đã có dòng trong DB (instance khác hoặc request đồng thời thu hồi trước): đưa vào bộ nhớ luôn
+            bucketFor(expiresAt.toEpochMilli()).add(tokenId);
+            return false;
+        }
+        // Chỉ ghi vào bộ nhớ sau khi đã lưu DB, để không giữ một thu hồi mà khởi động lại sẽ mất
+        return bucketFor(expiresAt.toEpochMilli()).add(tokenId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${jwt.refresh.revocation-reload-interval:60000}", initialDelayString = "${jwt.refresh.revocation-reload-interval:60000}")
+    public void reload() {
+        long now = System.currentTimeMillis();
+        buckets.headMap(now, true).clear();
+        int removed = revokedRefreshTokenRepository.deleteExpired(LocalDateTime.now());
+        int loaded = 0;
+        for (RevokedRefreshToken revoked : revokedRefreshTokenRepository.findByExpiresAtAfter(LocalDateTime.now())) {
+            if (bucketFor(revoked.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()).add(revoked.getTokenId())) {
+                loaded++;
+            }
+        }
+        if (removed > 0 || loaded > 0) {
+            logger.info("Refresh token revocations: {} loaded, {} expired rows pruned", loaded, removed);
+        }
+    }
+
+    private Set<String> bucketFor(long expiresAtMillis) {
+        long bucketEnd = (Math.floorDiv(expiresAtMillis, bucketMillis) + 1) * bucketMillis;
+        return buckets.computeIfAbsent(bucketEnd, end -> ConcurrentHashMap.newKeySet());
+    }
+}
@@ -0,0 +1,83 @@
+package com.benhvien1a.security;
+
+import com.benhvien1a.repository.UserRepository;
+import com.benhvien1a.repository.projection.UserTokenVersion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory map of email to current token version, consulted instead of the users table when a request is
+ * authenticated from JWT claims. A token is accepted only if its "ver" claim equals the user's version, so
+ * bumping the version revokes every token issued before, and a deleted user has no entry at all.
+ * Reloaded after local user writes commit and periodically, to pick up changes made by other instances.
+ */
+@Component
+public class UserTokenVersions {
+    private static final Logger logger = LoggerFactory.getLogger(UserTokenVersions.class);
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate reloadTransaction;
+    private volatile Map<String, Integer> versions = Map.of();
+
+    public UserTokenVersions(UserRepository userRepository, PlatformTransactionManager transactionManager) {
+        this.userRepository = userRepository;
+        this.reloadTransaction = new TransactionTemplate(transactionManager);
+        this.reloadTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.reloadTransaction.setReadOnly(true);
+    }
+
+    public boolean isCurrent(String email, int tokenVersion) {
+        Integer current = versions.get(email);
+        return current != null && current == tokenVersion;
+    }
+
+    /**
+     * Version to embed in a newly issued token; a null column counts as version 0.
+     */
+    public static int versionOf(Integer tokenVersion) {
+        return tokenVersion != null ? tokenVersion : 0;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${jwt.user-versions.refresh-interval:60000}", initialDelayString = "${jwt.user-versions.refresh-interval:60000}")
+    public synchronized void reload() {
+        List<UserTokenVersion> rows = reloadTransaction.execute(status -> userRepository.findAllTokenVersions());
+        Map<String, Integer> next = new HashMap<>();
+        for (UserTokenVersion row : rows) {
+            next.put(row.getEmail(), versionOf(row.getTokenVersion()));
+        }
+        if (!next.equals(versions)) {
+            logger.info("User token versions reloaded for {} users", next.size());
+        }
+        versions = Map.copyOf(next);
+    }
+
+    /**
+     * Reload once the current transaction commits, or immediately if there is none.
+     */
+    public void reloadAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reload();
+                }
+            });
+        } else {
+            reload();
+        }
+    }
+}
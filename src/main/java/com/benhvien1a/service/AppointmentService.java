@@ -3,17 +3,23 @@ package com.benhvien1a.service;
 import com.benhvien1a.dto.AppointmentDTO;
 import com.benhvien1a.model.Appointment;
 import com.benhvien1a.model.AppointmentStatus;
+import com.benhvien1a.response.CursorSlice;
+import com.benhvien1a.util.ExportFormat;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 public interface AppointmentService {
     Page<Appointment> getAllAppointments(Pageable pageable);
     Page<Appointment> getFilteredAppointments(AppointmentStatus status, String fullName, Pageable pageable);
+    CursorSlice<Appointment> getFilteredAppointmentsAfter(AppointmentStatus status, String fullName, String cursor, int size);
     Appointment getAppointmentById(Long id);
-    Appointment createAppointment(AppointmentDTO request);
+    Appointment createAppointment(AppointmentDTO request, String clientIp);
     Appointment updateAppointment(Long id, AppointmentDTO request);
     void deleteAppointment(Long id);
     void hideAppointment(Long id);
+    long exportAppointments(AppointmentStatus status, ExportFormat format, OutputStream out) throws IOException;
 }
\ No newline at end of file
@@ -4,5 +4,15 @@ import com.benhvien1a.response.AuthResponse;
 import com.benhvien1a.request.LoginRequest;
 
 public interface AuthService {
-    AuthResponse login(LoginRequest request);
+    AuthResponse login(LoginRequest request, String clientIp);
+
+    /**
+     * Exchange a refresh token for a new access token and a rotated refresh token.
+     */
+    AuthResponse refresh(String refreshToken);
+
+    /**
+     * Invalidate every access token issued to the user so far.
+     */
+    void revokeTokens(String email);
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.benhvien1a.service;
+
+import com.benhvien1a.dto.WorkingTemplateDTO;
+import com.benhvien1a.model.WorkingTemplate;
+import com.benhvien1a.response.DayAvailability;
+import com.benhvien1a.response.SlotAvailability;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+public interface AvailabilityService {
+    List<WorkingTemplate> getWorkingTemplates(Long doctorId, Long departmentId);
+    WorkingTemplate createWorkingTemplate(WorkingTemplateDTO request);
+    WorkingTemplate updateWorkingTemplate(Long id, WorkingTemplateDTO request);
+    void deleteWorkingTemplate(Long id);
+    List<DayAvailability> getDepartmentMonthAvailability(String departmentSlug, YearMonth month);
+    List<SlotAvailability> getDoctorDayAvailability(Long doctorId, LocalDate date);
+}
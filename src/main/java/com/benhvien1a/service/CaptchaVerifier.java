@@ -0,0 +1,10 @@
+package com.benhvien1a.service;
+
+/**
+ * Checks a CAPTCHA token with its issuer. Selected with recaptcha.verifier (google | local).
+ * Implementations return the issuer's verdict and throw when no verdict could be obtained
+ * (timeout, network error), so the caller does not cache it.
+ */
+public interface CaptchaVerifier {
+    boolean verify(String token);
+}
@@ -2,15 +2,24 @@ package com.benhvien1a.service;
 
 import com.benhvien1a.dto.DepartmentDTO;
 import com.benhvien1a.model.Department;
+import com.benhvien1a.repository.projection.DepartmentSummary;
+import com.benhvien1a.repository.projection.ListVersion;
+import com.benhvien1a.response.CursorSlice;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface DepartmentService {
     Page<Department> getAllDepartments(Pageable pageable);
-    Page<Department> getAllActiveDepartments(Pageable pageable);
+    Page<DepartmentSummary> getAllActiveDepartments(Pageable pageable);
+    CursorSlice<DepartmentSummary> getActiveDepartmentsAfter(String cursor, int size);
     Page<Department> getFilteredDepartments(String name, Boolean isActive, Pageable pageable);
+    CursorSlice<Department> getFilteredDepartmentsAfter(String name, Boolean isActive, String cursor, int size);
+    ListVersion getActiveDepartmentsVersion();
+    Optional<LocalDateTime> getDepartmentUpdateAtBySlug(String slug);
     Department getDepartmentById(Long id);
     Department getDepartmentBySlug(String slug);
     Department createDepartment(DepartmentDTO request);
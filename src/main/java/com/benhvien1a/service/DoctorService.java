@@ -3,16 +3,33 @@ package com.benhvien1a.service;
 import com.benhvien1a.dto.DoctorDTO;
 import com.benhvien1a.model.Doctor;
 import com.benhvien1a.model.Position;
+import com.benhvien1a.repository.projection.DoctorSummary;
+import com.benhvien1a.repository.projection.ListVersion;
+import com.benhvien1a.response.CursorSlice;
+import com.benhvien1a.response.DoctorFacets;
+import com.benhvien1a.util.ExportFormat;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface DoctorService {
     Page<Doctor> getAllDoctors(Pageable pageable);
-    Page<Doctor> getAllActiveDoctors(Pageable pageable);
+    Page<DoctorSummary> getAllActiveDoctors(Position position, Pageable pageable);
     Page<Doctor> getFilteredDoctors(String fullName, Boolean isActive, Long departmentId, Position position, Pageable pageable);
-    Page<Doctor> getDoctorsByDepartmentSlug(String departmentSlug, Pageable pageable);
+    Page<DoctorSummary> getDoctorsByDepartmentSlug(String departmentSlug, Pageable pageable);
+    CursorSlice<Doctor> getFilteredDoctorsAfter(String fullName, Boolean isActive, Long departmentId, Position position, String cursor, int size);
+    DoctorFacets getDoctorFacets(Boolean isActive, Long departmentId, Position position);
+    CursorSlice<DoctorSummary> getActiveDoctorsAfter(Position position, String cursor, int size);
+    CursorSlice<DoctorSummary> getDoctorsByDepartmentSlugAfter(String departmentSlug, String cursor, int size);
+    ListVersion getActiveDoctorsVersion(Position position);
+    ListVersion getDoctorsByDepartmentSlugVersion(String departmentSlug);
+    List<DoctorSummary> autocompleteDoctors(String query, int limit);
+    Optional<LocalDateTime> getDoctorUpdateAtBySlug(String slug);
     Doctor getDoctorById(Long id);
     Doctor getDoctorBySlug(String slug);
     Doctor createDoctor(DoctorDTO request);
@@ -20,4 +37,5 @@ public interface DoctorService {
     void deleteDoctor(Long id);
     void hideDoctor(Long id);
     List<String> getAllPositions();
+    long exportDoctors(ExportFormat format, OutputStream out) throws IOException;
 }
\ No newline at end of file
@@ -4,16 +4,31 @@ import com.benhvien1a.dto.PostDTO;
 import com.benhvien1a.model.Post;
 import com.benhvien1a.model.PostStatus;
 import com.benhvien1a.model.PostType;
+import com.benhvien1a.repository.projection.PostListVersion;
+import com.benhvien1a.repository.projection.PostSummary;
+import com.benhvien1a.response.CursorSlice;
+import com.benhvien1a.response.PostSearchHit;
+import com.benhvien1a.response.TrendingPost;
+import com.benhvien1a.util.ExportFormat;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.Map;
 
 public interface PostService {
     Page<Post> getAllPosts(Pageable pageable);
-    Page<Post> getAllActivePosts(Pageable pageable);
+    Page<PostSummary> getAllActivePosts(Pageable pageable);
     Page<Post> getFilteredPosts(String title, PostStatus status, PostType type, Pageable pageable);
-    Page<Post> getPostsByType(PostType type, Pageable pageable);
+    CursorSlice<PostSummary> getActivePostsAfter(String cursor, int size);
+    CursorSlice<PostSummary> getPostsByTypeAfter(PostType type, String cursor, int size);
+    CursorSlice<Post> getFilteredPostsAfter(String title, PostStatus status, PostType type, String cursor, int size);
+    Page<PostSearchHit> searchPosts(String query, PostStatus status, PostType type, Pageable pageable);
+    Page<PostSummary> getPostsByType(PostType type, Pageable pageable);
+    PostListVersion getActivePostsVersion();
+    PostListVersion getPostsByTypeVersion(PostType type);
     Post getPostById(Long id);
     Post getPostBySlug(String slug);
     Post createPost(PostDTO request);
@@ -21,4 +36,7 @@ public interface PostService {
     void deletePost(Long id);
     void hidePost(Long id);
     List<String> getAllPostTypes();
-}
\ No newline at end of file
+    List<TrendingPost> getTrendingPosts(PostType type, int limit);
+    Map<String, Object> getPublishedPostCacheStats();
+    long exportPosts(ExportFormat format, OutputStream out) throws IOException;
+}
@@ -3,7 +3,11 @@ package com.benhvien1a.service;
 import com.benhvien1a.dto.SiteConfigDTO;
 import com.benhvien1a.model.SiteConfig;
 
+import java.time.LocalDateTime;
+import java.util.Optional;
+
 public interface SiteConfigService {
     SiteConfig getSiteConfig();
+    Optional<LocalDateTime> getSiteConfigUpdateAt();
     SiteConfig updateSiteConfig(SiteConfigDTO request);
 }
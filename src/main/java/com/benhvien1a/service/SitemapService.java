@@ -0,0 +1,15 @@
+package com.benhvien1a.service;
+
+import com.benhvien1a.model.PostType;
+import com.benhvien1a.response.CompressedXml;
+
+import java.util.Optional;
+
+public interface SitemapService {
+    CompressedXml getSitemapIndex();
+    Optional<CompressedXml> getSitemap(String name);
+    CompressedXml getRssFeed(PostType type);
+    void invalidatePosts(PostType... types);
+    void invalidateDoctors();
+    void invalidateDepartments();
+}
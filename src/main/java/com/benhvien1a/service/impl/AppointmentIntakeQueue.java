@@ -0,0 +1,203 @@
+package com.benhvien1a.service.impl;
+
+import com.benhvien1a.exception.BookingUnconfirmedException;
+import com.benhvien1a.exception.ServiceBusyException;
+import com.benhvien1a.model.Appointment;
+import com.benhvien1a.repository.AppointmentRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Batched intake of validated public bookings.
+ * Callers put the appointment in a bounded queue and wait for its commit; a single writer thread
+ * drains the queue and stores up to batch-size appointments per transaction as one JDBC batch
+ * (ids come from the pooled table generator, so Hibernate can batch the INSERTs).
+ * A full queue is rejected immediately instead of piling up requests on the connection pool, and a caller
+ * waits at most wait-timeout for its commit, so a stalled writer cannot hold request threads forever.
+ */
+@Service
+public class AppointmentIntakeQueue {
+    private static final Logger logger = LoggerFactory.getLogger(AppointmentIntakeQueue.class);
+    private static final long POLL_MILLIS = 200;
+    private static final String BUSY_MESSAGE = "Too many bookings at the moment, please try again shortly";
+    private static final String UNCONFIRMED_MESSAGE = "Your booking was received but is not confirmed yet, please do not submit it again";
+
+    private final AppointmentRepository appointmentRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate writeTransaction;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long waitTimeoutMillis;
+    private final BlockingQueue<PendingAppointment> queue;
+    private volatile boolean running;
+    private Thread writer;
+
+    public AppointmentIntakeQueue(AppointmentRepository appointmentRepository,
+                                  JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${appointments.intake.batched:true}") boolean enabled,
+                                  @Value("${appointments.intake.queue-capacity:2000}") int queueCapacity,
+                                  @Value("${appointments.intake.batch-size:50}") int batchSize,
+                                  @Value("${appointments.intake.wait-timeout-ms:15000}") long waitTimeoutMillis) {
+        this.appointmentRepository = appointmentRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setTimeout(30);
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.waitTimeoutMillis = Math.max(1, waitTimeoutMillis);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+    }
+
+    @PostConstruct
+    public void start() {
+        alignIdGenerator();
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::drainLoop, "appointment-intake");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            // Writer ghi nốt các lịch còn trong hàng đợi rồi mới dừng
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queue the appointment and wait until it is committed. Fails fast with ServiceBusyException when the
+     * queue is full or when the wait for the commit times out before the writer took the booking. Once the
+     * writer has taken it, a timeout throws BookingUnconfirmedException instead: the booking may still be
+     * stored. Any other exception means the booking was not stored.
+     */
+    public Appointment submit(Appointment appointment) {
+        PendingAppointment pending = new PendingAppointment(appointment);
+        if (!running || !queue.offer(pending)) {
+            throw new ServiceBusyException(BUSY_MESSAGE);
+        }
+        try {
+            return pending.result.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Còn trong hàng đợi thì rút ra để không ghi sau khi đã báo lỗi cho người dùng
+            if (queue.remove(pending)) {
+                logger.warn("Booking was not written within {} ms and has been withdrawn", waitTimeoutMillis);
+                throw new ServiceBusyException(BUSY_MESSAGE);
+            }
+            logger.warn("Booking was not confirmed within {} ms, it may still be stored", waitTimeoutMillis);
+            throw new BookingUnconfirmedException(UNCONFIRMED_MESSAGE);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (queue.remove(pending)) {
+                throw new RuntimeException("Interrupted while waiting for booking confirmation");
+            }
+            throw new BookingUnconfirmedException(UNCONFIRMED_MESSAGE);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new RuntimeException(e.getCause());
+        }
+    }
+
+    private void drainLoop() {
+        List<PendingAppointment> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingAppointment first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Throwable e) {
+                // Kể cả Error: writer là luồng duy nhất, nếu chết thì mọi người gọi sẽ chờ mãi
+                logger.error("Appointment intake writer failed: {}", e.getMessage(), e);
+                batch.forEach(pending -> pending.result.completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+        running = false;
+        List<PendingAppointment> abandoned = new ArrayList<>();
+        queue.drainTo(abandoned);
+        RuntimeException stopped = new RuntimeException("Appointment intake has stopped");
+        abandoned.forEach(pending -> pending.result.completeExceptionally(stopped));
+    }
+
+    /**
+     * Store the batch in one transaction; if it fails, store each appointment on its own
+     * so one bad row does not fail the others.
+     */
+    private void write(List<PendingAppointment> batch) {
+        List<Appointment> appointments = batch.stream().map(pending -> pending.appointment).toList();
+        try {
+            writeTransaction.executeWithoutResult(status -> appointmentRepository.saveAll(appointments));
+            batch.forEach(pending -> pending.result.complete(pending.appointment));
+            logger.debug("Stored batch of {} appointments", batch.size());
+            return;
+        } catch (RuntimeException e) {
+            logger.warn("Batch of {} appointments failed, retrying one by one: {}", batch.size(), e.getMessage());
+        }
+        for (PendingAppointment pending : batch) {
+            try {
+                pending.appointment.setId(null);
+                writeTransaction.executeWithoutResult(status -> appointmentRepository.save(pending.appointment));
+                pending.result.complete(pending.appointment);
+            } catch (RuntimeException e) {
+                pending.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Appointments used IDENTITY ids before: move the pooled generator past the existing rows.
+     */
+    private void alignIdGenerator() {
+        String table = Appointment.ID_GENERATOR_TABLE;
+        long floor = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM appointments", Long.class)
+                + Appointment.ID_ALLOCATION_SIZE + 1;
+        int updated = jdbcTemplate.update("UPDATE " + table + " SET next_val = ? WHERE name = ? AND next_val < ?",
+                floor, Appointment.ID_GENERATOR_SEGMENT, floor);
+        Integer rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table + " WHERE name = ?",
+                Integer.class, Appointment.ID_GENERATOR_SEGMENT);
+        if (updated == 0 && rows != null && rows == 0) {
+            jdbcTemplate.update("INSERT INTO " + table + " (name, next_val) VALUES (?, ?)", Appointment.ID_GENERATOR_SEGMENT, floor);
+        }
+    }
+
+    private static final class PendingAppointment {
+        private final Appointment appointment;
+        private final CompletableFuture<Appointment> result = new CompletableFuture<>();
+
+        private PendingAppointment(Appointment appointment) {
+            this.appointment = appointment;
+        }
+    }
+}
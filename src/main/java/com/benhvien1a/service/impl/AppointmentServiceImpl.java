@@ -1,26 +1,50 @@
 package com.benhvien1a.service.impl;
 
 import com.benhvien1a.dto.AppointmentDTO;
+import com.benhvien1a.exception.BookingUnconfirmedException;
 import com.benhvien1a.model.Appointment;
 import com.benhvien1a.model.AppointmentStatus;
 import com.benhvien1a.repository.AppointmentRepository;
+import com.benhvien1a.repository.projection.AppointmentExportRow;
+import com.benhvien1a.repository.projection.DoctorSummary;
+import com.benhvien1a.response.CursorSlice;
 import com.benhvien1a.service.AppointmentService;
+import com.benhvien1a.util.ExportFormat;
+import com.benhvien1a.util.KeysetCursor;
+import com.benhvien1a.util.RowExporter;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class AppointmentServiceImpl implements AppointmentService {
     private static final Logger logger = LoggerFactory.getLogger(AppointmentServiceImpl.class);
+    private static final List<String> APPOINTMENT_EXPORT_COLUMNS = List.of("id", "fullName", "email", "phone", "status", "date", "timeSlot", "note", "createdAt", "updatedAt");
     private final AppointmentRepository appointmentRepository;
     private final RecaptchaService recaptchaService;
+    private final SlotAvailabilityEngine slotAvailabilityEngine;
+    private final DoctorDirectory doctorDirectory;
+    private final SlotCapacityCounters slotCapacityCounters;
+    private final AppointmentIntakeQueue appointmentIntakeQueue;
+    private final AppointmentSpamFilter appointmentSpamFilter;
+    private final TransactionTemplate transactionTemplate;
 
     @Override
     @Transactional(readOnly = true)
@@ -36,6 +60,17 @@ public class AppointmentServiceImpl implements AppointmentService {
         return appointmentRepository.findByStatusAndFullName(status, fullName, pageable);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorSlice<Appointment> getFilteredAppointmentsAfter(AppointmentStatus status, String fullName, String cursor, int size) {
+        logger.info("Fetching appointments with status: {} and fullName: {} after cursor: {}", status, fullName, cursor);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        return CursorSlice.of(
+                appointmentRepository.findByStatusAndFullNameAfter(status, fullName, after.getTimestamp(), after.getId(),
+                        PageRequest.of(0, KeysetCursor.clampSize(size))),
+                appointment -> KeysetCursor.encode(appointment.getCreatedAt(), appointment.getId()));
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Appointment getAppointmentById(Long id) {
@@ -45,15 +80,64 @@ public class AppointmentServiceImpl implements AppointmentService {
     }
 
     @Override
-    @Transactional
-    public Appointment createAppointment(AppointmentDTO request) {
+    public Appointment createAppointment(AppointmentDTO request, String clientIp) {
+        // Lọc rác cục bộ trước mọi chi phí khác (log, reCAPTCHA, transaction)
+        appointmentSpamFilter.check(request, clientIp);
         logger.info("Creating appointment for: {}", request.getFullName());
+        Appointment created;
+        try {
+            created = request.getDoctorId() != null ? createDoctorAppointment(request) : createOpenAppointment(request);
+        } catch (BookingUnconfirmedException e) {
+            // Lịch có thể đã được lưu: ghi nhận để lần gửi lại bị chặn như gửi trùng
+            appointmentSpamFilter.recordAccepted(request);
+            throw e;
+        }
+        appointmentSpamFilter.recordAccepted(request);
+        return created;
+    }
+
+    private Appointment createDoctorAppointment(AppointmentDTO request) {
+        // Kiểm tra chỗ trống trong bộ nhớ trước reCAPTCHA và trước khi mở transaction
+        LocalTime start = parseStartTime(request.getTimeSlot());
+        if (!slotAvailabilityEngine.isFree(request.getDoctorId(), request.getDate(), start)) {
+            throw new RuntimeException("Doctor is not available at " + start + " on " + request.getDate());
+        }
+        verifyRecaptcha(request);
+        // Giữ slot của bác sĩ cần compare-and-set trong chính transaction ghi lịch, không đi qua hàng đợi batch
+        return transactionTemplate.execute(status -> {
+            Appointment appointment = newAppointment(request);
+            assignSlot(appointment, request.getDoctorId(), request.getDate(), start);
+            return appointmentRepository.save(appointment);
+        });
+    }
+
+    private Appointment createOpenAppointment(AppointmentDTO request) {
+        slotCapacityCounters.reserve(request.getDate(), request.getTimeSlot());
+        try {
+            verifyRecaptcha(request);
+            Appointment appointment = newAppointment(request);
+            if (appointmentIntakeQueue.isEnabled()) {
+                return appointmentIntakeQueue.submit(appointment);
+            }
+            return transactionTemplate.execute(status -> appointmentRepository.save(appointment));
+        } catch (BookingUnconfirmedException e) {
+            // Writer đã nhận lịch và có thể vẫn commit: giữ chỗ, đối soát lúc khởi động sẽ sửa nếu lệch
+            throw e;
+        } catch (RuntimeException e) {
+            slotCapacityCounters.release(request.getDate(), request.getTimeSlot());
+            throw e;
+        }
+    }
+
+    private void verifyRecaptcha(AppointmentDTO request) {
         if (!recaptchaService.verify(request.getRecaptchaToken())) {
             logger.warn("Invalid reCAPTCHA for: {}", request.getFullName());
             throw new RuntimeException("reCAPTCHA verification failed");
         }
+    }
 
-        Appointment appointment = Appointment.builder()
+    private static Appointment newAppointment(AppointmentDTO request) {
+        return Appointment.builder()
                 .fullName(request.getFullName())
                 .email(request.getEmail())
                 .phone(request.getPhone())
@@ -64,8 +148,6 @@ public class AppointmentServiceImpl implements AppointmentService {
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
                 .build();
-
-        return appointmentRepository.save(appointment);
     }
 
     @Override
@@ -73,6 +155,11 @@ public class AppointmentServiceImpl implements AppointmentService {
     public Appointment updateAppointment(Long id, AppointmentDTO request) {
         logger.info("Updating appointment with ID: {}", id);
         Appointment appointment = getAppointmentById(id);
+        Long previousDoctorId = appointment.getDoctorId();
+        LocalDate previousDate = appointment.getDate();
+        Integer previousSlot = holdsSlot(appointment) ? appointment.getSlotIndex() : null;
+        String previousTimeSlot = appointment.getTimeSlot();
+        boolean previouslyCounted = SlotCapacityCounters.counts(appointment);
 
         appointment.setFullName(request.getFullName());
         appointment.setEmail(request.getEmail());
@@ -83,6 +170,30 @@ public class AppointmentServiceImpl implements AppointmentService {
         appointment.setStatus(request.getStatus());
         appointment.setUpdatedAt(LocalDateTime.now());
 
+        // Đổi bác sĩ/ngày/giờ hoặc huỷ lịch: trả slot cũ rồi giữ slot mới
+        boolean wantsSlot = request.getDoctorId() != null && request.getStatus() != AppointmentStatus.CANCELLED;
+        LocalTime start = wantsSlot ? parseStartTime(request.getTimeSlot()) : null;
+        boolean sameSlot = previousSlot != null && wantsSlot
+                && request.getDoctorId().equals(previousDoctorId)
+                && Objects.equals(request.getDate(), previousDate)
+                && slotAvailabilityEngine.slotStart(previousSlot).equals(start);
+        if (previousSlot != null && !sameSlot) {
+            slotAvailabilityEngine.release(previousDoctorId, previousDate, previousSlot);
+            appointment.setSlotIndex(null);
+        }
+        if (sameSlot) {
+            appointment.setTimeSlot(formatSlot(previousSlot));
+        } else if (wantsSlot) {
+            assignSlot(appointment, request.getDoctorId(), request.getDate(), start);
+        } else {
+            appointment.setDoctorId(request.getDoctorId());
+            if (!Objects.equals(request.getDoctorId(), previousDoctorId)) {
+                appointment.setDepartmentId(departmentOf(request.getDoctorId()));
+            }
+        }
+        slotCapacityCounters.transferAfterCommit(previousDate, previousTimeSlot, previouslyCounted,
+                appointment.getDate(), appointment.getTimeSlot(), SlotCapacityCounters.counts(appointment));
+
         return appointmentRepository.save(appointment);
     }
 
@@ -91,6 +202,11 @@ public class AppointmentServiceImpl implements AppointmentService {
     public void deleteAppointment(Long id) {
         logger.info("Deleting appointment with ID: {}", id);
         Appointment appointment = getAppointmentById(id);
+        if (holdsSlot(appointment)) {
+            slotAvailabilityEngine.release(appointment.getDoctorId(), appointment.getDate(), appointment.getSlotIndex());
+        }
+        slotCapacityCounters.transferAfterCommit(appointment.getDate(), appointment.getTimeSlot(),
+                SlotCapacityCounters.counts(appointment), null, null, false);
         appointmentRepository.delete(appointment);
     }
 
@@ -99,8 +215,63 @@ public class AppointmentServiceImpl implements AppointmentService {
     public void hideAppointment(Long id) {
         logger.info("Hiding appointment with ID: {}", id);
         Appointment appointment = getAppointmentById(id);
+        if (holdsSlot(appointment)) {
+            slotAvailabilityEngine.release(appointment.getDoctorId(), appointment.getDate(), appointment.getSlotIndex());
+        }
+        slotCapacityCounters.transferAfterCommit(appointment.getDate(), appointment.getTimeSlot(),
+                SlotCapacityCounters.counts(appointment), null, null, false);
         appointment.setStatus(AppointmentStatus.CANCELLED);
         appointment.setUpdatedAt(LocalDateTime.now());
         appointmentRepository.save(appointment);
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportAppointments(AppointmentStatus status, ExportFormat format, OutputStream out) throws IOException {
+        logger.info("Exporting appointments with status: {} as {}", status, format);
+        try (Stream<AppointmentExportRow> rows = appointmentRepository.streamForExport(status)) {
+            return RowExporter.write(rows, format, APPOINTMENT_EXPORT_COLUMNS, row -> new Object[]{
+                        row.getId(), row.getFullName(), row.getEmail(), row.getPhone(), row.getStatus(), row.getDate(),
+                        row.getTimeSlot(), row.getNote(), row.getCreatedAt(), row.getUpdatedAt()}, out);
+        }
+    }
+
+    private void assignSlot(Appointment appointment, Long doctorId, LocalDate date, LocalTime start) {
+        if (date == null) {
+            throw new RuntimeException("Date is required to book a doctor");
+        }
+        int slot = slotAvailabilityEngine.book(doctorId, date, start);
+        appointment.setDoctorId(doctorId);
+        appointment.setDepartmentId(departmentOf(doctorId));
+        appointment.setSlotIndex(slot);
+        appointment.setTimeSlot(formatSlot(slot));
+    }
+
+    private Long departmentOf(Long doctorId) {
+        return doctorId == null ? null : doctorDirectory.current().findById(doctorId)
+                .map(DoctorSummary::getDepartmentId)
+                .orElse(null);
+    }
+
+    private String formatSlot(int slot) {
+        return slotAvailabilityEngine.slotStart(slot) + " - " + slotAvailabilityEngine.slotEnd(slot);
+    }
+
+    private static boolean holdsSlot(Appointment appointment) {
+        return appointment.getSlotIndex() != null && appointment.getStatus() != AppointmentStatus.CANCELLED;
+    }
+
+    /**
+     * Start time of a "HH:mm" or "HH:mm - HH:mm" time slot.
+     */
+    private static LocalTime parseStartTime(String timeSlot) {
+        if (timeSlot == null || !timeSlot.trim().matches("\\d{2}:\\d{2}.*")) {
+            throw new RuntimeException("Time slot must start with HH:mm when a doctor is selected");
+        }
+        try {
+            return LocalTime.parse(timeSlot.trim().substring(0, 5));
+        } catch (DateTimeParseException e) {
+            throw new RuntimeException("Invalid time slot: " + timeSlot);
+        }
+    }
 }
\ No newline at end of file
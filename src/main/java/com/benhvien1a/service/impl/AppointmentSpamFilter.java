@@ -0,0 +1,297 @@
+package com.benhvien1a.service.impl;
+
+import com.benhvien1a.dto.AppointmentDTO;
+import com.benhvien1a.exception.SpamRejectedException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.regex.Pattern;
+
+/**
+ * In-process first pass over public bookings, run before the capacity check and the remote reCAPTCHA call.
+ * Field heuristics, per-IP/per-phone sliding-window counters and a duplicate detector (same phone and date
+ * accepted recently, kept in a pair of rotating Bloom filters) reject obvious junk in memory only.
+ */
+@Service
+public class AppointmentSpamFilter {
+    private static final Logger logger = LoggerFactory.getLogger(AppointmentSpamFilter.class);
+    private static final Pattern PHONE = Pattern.compile("0\\d{9,10}");
+    private static final Pattern EMAIL = Pattern.compile("[^@\\s]+@[^@\\s]+\\.[^@\\s]+");
+    private static final Pattern LINK = Pattern.compile("(?i)(https?://|www\\.|\\[url|<a\\s)");
+    private static final Pattern LETTER = Pattern.compile("\\p{L}");
+    private static final int MAX_NAME_LENGTH = 100;
+    private static final int MAX_NOTE_LENGTH = 1000;
+    private static final int MAX_DAYS_AHEAD = 365;
+
+    private final boolean enabled;
+    private final long windowMillis;
+    private final int maxPerIp;
+    private final int maxPerPhone;
+    private final long duplicateWindowMillis;
+    private final int bloomBits;
+    private final int bloomHashes;
+    private final Cache<String, SlidingWindowCounter> ipCounters;
+    private final Cache<String, SlidingWindowCounter> phoneCounters;
+    private volatile BloomFilter currentSubmissions;
+    private volatile BloomFilter previousSubmissions;
+    private volatile long rotatedAt;
+
+    public AppointmentSpamFilter(@Value("${appointments.spam-filter.enabled:true}") boolean enabled,
+                                 @Value("${appointments.spam-filter.window-minutes:10}") long windowMinutes,
+                                 @Value("${appointments.spam-filter.max-per-ip:10}") int maxPerIp,
+                                 @Value("${appointments.spam-filter.max-per-phone:3}") int maxPerPhone,
+                                 @Value("${appointments.spam-filter.duplicate-window-minutes:30}") long duplicateWindowMinutes,
+                                 @Value("${appointments.spam-filter.bloom-bits:1048576}") int bloomBits,
+                                 @Value("${appointments.spam-filter.bloom-hashes:4}") int bloomHashes,
+                                 @Value("${appointments.spam-filter.max-tracked-keys:100000}") long maxTrackedKeys) {
+        this.enabled = enabled;
+        this.windowMillis = Duration.ofMinutes(windowMinutes).toMillis();
+        this.maxPerIp = maxPerIp;
+        this.maxPerPhone = maxPerPhone;
+        this.duplicateWindowMillis = Duration.ofMinutes(duplicateWindowMinutes).toMillis();
+        this.bloomBits = bloomBits;
+        this.bloomHashes = bloomHashes;
+        // Bộ đếm của một khoá chỉ còn ý nghĩa trong cửa sổ hiện tại và cửa sổ liền trước
+        this.ipCounters = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofMillis(2 * windowMillis))
+                .maximumSize(maxTrackedKeys)
+                .build();
+        this.phoneCounters = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofMillis(2 * windowMillis))
+                .maximumSize(maxTrackedKeys)
+                .build();
+        this.currentSubmissions = new BloomFilter(bloomBits, bloomHashes);
+        this.previousSubmissions = new BloomFilter(bloomBits, bloomHashes);
+        this.rotatedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Reject the submission with a SpamRejectedException, or return if it is worth a remote verification.
+     */
+    public void check(AppointmentDTO request, String clientIp) {
+        if (!enabled) {
+            return;
+        }
+        String phone = normalizePhone(request.getPhone());
+        String problem = fieldProblem(request, phone);
+        if (problem != null) {
+            reject(HttpStatus.BAD_REQUEST, problem, clientIp);
+        }
+
+        long now = System.currentTimeMillis();
+        if (clientIp != null && maxPerIp > 0
+                && counter(ipCounters, clientIp).incrementAndEstimate(now, windowMillis) > maxPerIp) {
+            rejectRateLimited("Too many appointment requests, please try again later", clientIp, now);
+        }
+        if (maxPerPhone > 0 && counter(phoneCounters, phone).incrementAndEstimate(now, windowMillis) > maxPerPhone) {
+            rejectRateLimited("Too many appointment requests for this phone number, please try again later", clientIp, now);
+        }
+        if (duplicateWindowMillis > 0) {
+            long hash = hash(phone + '|' + request.getDate());
+            rotateIfDue(now);
+            if (currentSubmissions.mightContain(hash) || previousSubmissions.mightContain(hash)) {
+                reject(HttpStatus.CONFLICT, "An appointment for this phone number and date was already submitted", clientIp);
+            }
+        }
+    }
+
+    /**
+     * Remember an accepted booking so that a resubmission of the same phone and date is caught by check().
+     */
+    public void recordAccepted(AppointmentDTO request) {
+        if (!enabled || duplicateWindowMillis <= 0) {
+            return;
+        }
+        rotateIfDue(System.currentTimeMillis());
+        currentSubmissions.add(hash(normalizePhone(request.getPhone()) + '|' + request.getDate()));
+    }
+
+    private static String fieldProblem(AppointmentDTO request, String phone) {
+        if (phone == null || !PHONE.matcher(phone).matches()) {
+            return "Invalid phone number";
+        }
+        String fullName = request.getFullName();
+        if (fullName == null || fullName.isBlank() || fullName.length() > MAX_NAME_LENGTH
+                || !LETTER.matcher(fullName).find()) {
+            return "Invalid full name";
+        }
+        if (request.getEmail() != null && !request.getEmail().isBlank()
+                && !EMAIL.matcher(request.getEmail().trim()).matches()) {
+            return "Invalid email";
+        }
+        String note = request.getNote();
+        if (note != null && note.length() > MAX_NOTE_LENGTH) {
+            return "Note is too long";
+        }
+        if (LINK.matcher(fullName).find() || (note != null && LINK.matcher(note).find())) {
+            return "Links are not allowed";
+        }
+        LocalDate today = LocalDate.now();
+        if (request.getDate() == null || request.getDate().isBefore(today)
+                || request.getDate().isAfter(today.plusDays(MAX_DAYS_AHEAD))) {
+            return "Invalid appointment date";
+        }
+        return null;
+    }
+
+    private static void reject(HttpStatus status, String message, String clientIp) {
+        reject(status, message, clientIp, 0);
+    }
+
+    private static void reject(HttpStatus status, String message, String clientIp, long retryAfterSeconds) {
+        // Chỉ log ở mức debug: khi bị flood, mỗi dòng log cũng là chi phí
+        logger.debug("Appointment pre-filter rejected request from {}: {}", clientIp, message);
+        throw new SpamRejectedException(status, message, retryAfterSeconds);
+    }
+
+    /**
+     * 429 with Retry-After set to the end of the current fixed window, when the sliding estimate next drops.
+     */
+    private void rejectRateLimited(String message, String clientIp, long now) {
+        long wait = windowMillis - now % windowMillis;
+        reject(HttpStatus.TOO_MANY_REQUESTS, message, clientIp, Math.max(1, (wait + 999) / 1000));
+    }
+
+    private static SlidingWindowCounter counter(Cache<String, SlidingWindowCounter> counters, String key) {
+        return counters.get(key, k -> new SlidingWindowCounter());
+    }
+
+    /**
+     * Digits only, with the +84 country prefix folded to a leading 0.
+     */
+    static String normalizePhone(String phone) {
+        if (phone == null) {
+            return null;
+        }
+        String digits = phone.replaceAll("[\\s.()-]", "");
+        if (digits.startsWith("+84")) {
+            digits = "0" + digits.substring(3);
+        } else if (digits.startsWith("84") && digits.length() == 11) {
+            digits = "0" + digits.substring(2);
+        }
+        return digits;
+    }
+
+    /**
+     * Each generation covers one duplicate window: an accepted booking is remembered for at least
+     * one window and at most two.
+     */
+    private void rotateIfDue(long now) {
+        if (now - rotatedAt < duplicateWindowMillis) {
+            return;
+        }
+        synchronized (this) {
+            if (now - rotatedAt >= duplicateWindowMillis) {
+                // Quá hai cửa sổ không có lượt nào: bỏ cả hai thế hệ
+                previousSubmissions = now - rotatedAt >= 2 * duplicateWindowMillis
+                        ? new BloomFilter(bloomBits, bloomHashes)
+                        : currentSubmissions;
+                currentSubmissions = new BloomFilter(bloomBits, bloomHashes);
+                rotatedAt = now;
+            }
+        }
+    }
+
+    /**
+     * 64-bit FNV-1a followed by a finalizer mix, used to derive the Bloom filter probes.
+     */
+    private static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Approximate sliding-window count: the previous fixed window weighted by how much of it still
+     * overlaps the sliding window, plus the current one. Window index and both counts are packed into
+     * one AtomicLong ([window:32][previous:16][current:16]) and updated with compare-and-set.
+     */
+    static final class SlidingWindowCounter {
+        private static final int MAX_COUNT = 0xFFFF;
+        private final AtomicLong state = new AtomicLong();
+
+        int incrementAndEstimate(long now, long windowMillis) {
+            long window = (now / windowMillis) & 0xFFFFFFFFL;
+            double elapsed = (double) (now % windowMillis) / windowMillis;
+            while (true) {
+                long current = state.get();
+                long stateWindow = current >>> 32;
+                int previousCount;
+                int currentCount;
+                if (stateWindow == window) {
+                    previousCount = (int) ((current >>> 16) & MAX_COUNT);
+                    currentCount = Math.min((int) (current & MAX_COUNT) + 1, MAX_COUNT);
+                } else if (stateWindow + 1 == window) {
+                    previousCount = (int) (current & MAX_COUNT);
+                    currentCount = 1;
+                } else {
+                    previousCount = 0;
+                    currentCount = 1;
+                }
+                long next = (window << 32) | ((long) previousCount << 16) | currentCount;
+                if (state.compareAndSet(current, next)) {
+                    return (int) (previousCount * (1 - elapsed)) + currentCount;
+                }
+            }
+        }
+    }
+
+    /**
+     * Fixed-size Bloom filter over a lock-free bit array; probes come from double hashing of one 64-bit hash.
+     */
+    static final class BloomFilter {
+        private final AtomicLongArray words;
+        private final int bits;
+        private final int hashes;
+
+        BloomFilter(int bits, int hashes) {
+            this.words = new AtomicLongArray((bits + 63) >>> 6);
+            this.bits = words.length() << 6;
+            this.hashes = hashes;
+        }
+
+        void add(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < hashes; i++) {
+                int bit = Math.floorMod(h1 + i * h2, bits);
+                long mask = 1L << bit;
+                int index = bit >>> 6;
+                long word;
+                do {
+                    word = words.get(index);
+                    if ((word & mask) != 0) {
+                        break;
+                    }
+                } while (!words.compareAndSet(index, word, word | mask));
+            }
+        }
+
+        boolean mightContain(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < hashes; i++) {
+                int bit = Math.floorMod(h1 + i * h2, bits);
+                if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
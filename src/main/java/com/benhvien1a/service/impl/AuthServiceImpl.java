@@ -12,19 +12,21 @@ import com.benhvien1a.model.Role;
 import com.benhvien1a.model.User;
 import com.benhvien1a.repository.UserRepository;
 import com.benhvien1a.security.JwtUtil;
+import com.benhvien1a.security.RefreshTokenRevocations;
+import com.benhvien1a.security.UserTokenVersions;
 import com.benhvien1a.service.AuthService;
+import io.jsonwebtoken.Claims;
 import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.UUID;
 import java.util.regex.Pattern;
 
 @Service
@@ -48,7 +50,16 @@ public class AuthServiceImpl implements AuthService {
     private JwtUtil jwtUtil;
 
     @Autowired
-    private AuthenticationManager authenticationManager;
+    private PasswordHashingExecutor passwordHashingExecutor;
+
+    @Autowired
+    private UserTokenVersions userTokenVersions;
+
+    @Autowired
+    private RefreshTokenRevocations refreshTokenRevocations;
+
+    @Autowired
+    private LoginThrottle loginThrottle;
     /**
      * Khởi tạo tài khoản admin mặc định khi ứng dụng khởi động.
      */
@@ -69,29 +80,67 @@ public class AuthServiceImpl implements AuthService {
     }
 
     @Override
-    public AuthResponse login(LoginRequest request) {
+    public AuthResponse login(LoginRequest request, String clientIp) {
+        // Tài khoản/IP đang bị khoá thì dừng trước mọi truy vấn DB và BCrypt
+        loginThrottle.checkAllowed(request.getEmail(), clientIp);
         logger.info("Thử đăng nhập với email: {}", request.getEmail());
 
         User user = userRepository.findByEmail(request.getEmail().toLowerCase());
-        if (user == null || !passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+        // Một lần BCrypt duy nhất, chạy trên pool băm mật khẩu giới hạn thay vì thread của Tomcat
+        if (user == null || !passwordHashingExecutor.matches(request.getPassword(), user.getPassword())) {
+            loginThrottle.recordFailure(request.getEmail(), clientIp);
             logger.error("Thông tin đăng nhập không hợp lệ cho: {}", request.getEmail());
             throw new AuthException("Thông tin đăng nhập không hợp lệ");
         }
+        loginThrottle.recordSuccess(request.getEmail());
+        if (passwordHashingExecutor.needsRehash(user.getPassword())) {
+            logger.info("Băm lại mật khẩu với cost mới cho: {}", user.getEmail());
+            passwordHashingExecutor.rehashLater(request.getPassword(),
+                    hash -> userRepository.replacePasswordHash(user.getId(), user.getPassword(), hash));
+        }
+
+        int tokenVersion = UserTokenVersions.versionOf(user.getTokenVersion());
+        String token = jwtUtil.generateToken(user.getEmail(), user.getRole().name(), tokenVersion);
+        // Mỗi lần đăng nhập mở một chuỗi refresh token mới
+        String refreshToken = jwtUtil.generateRefreshToken(user.getEmail(), user.getRole().name(), tokenVersion, UUID.randomUUID().toString());
+        logger.info("Đăng nhập thành công cho: {}, vai trò: {}", user.getEmail(), user.getRole());
 
+        return new AuthResponse(token, refreshToken);
+    }
 
-        // Xác thực với AuthenticationManager
-        try {
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(request.getEmail().toLowerCase(), request.getPassword()));
-            SecurityContextHolder.getContext().setAuthentication(authentication);
-        } catch (Exception e) {
-            logger.warn("Xác thực thất bại nhưng tiếp tục: {}", e.getMessage());
+    @Override
+    public AuthResponse refresh(String refreshToken) {
+        Claims claims = jwtUtil.getValidClaims(refreshToken);
+        if (claims == null || !JwtUtil.isRefreshToken(claims) || claims.getId() == null) {
+            throw new AuthException("Refresh token không hợp lệ");
+        }
+        String email = claims.getSubject();
+        String family = claims.get(JwtUtil.FAMILY_CLAIM, String.class);
+        int tokenVersion = JwtUtil.getVersion(claims);
+        logger.info("Làm mới token cho: {}", email);
+
+        // Đăng xuất (tăng phiên bản token) hoặc chuỗi đã bị thu hồi: không cho làm mới
+        if (family == null || refreshTokenRevocations.isRevoked(family) || !userTokenVersions.isCurrent(email, tokenVersion)) {
+            throw new AuthException("Refresh token đã bị thu hồi");
+        }
+        // Xoay vòng: token cũ bị thu hồi; nếu nó đã bị thu hồi trước đó tức là bị dùng lại -> thu hồi cả chuỗi
+        if (!refreshTokenRevocations.revoke(claims.getId(), claims.getExpiration().toInstant())) {
+            logger.warn("Phát hiện refresh token bị dùng lại cho: {}, thu hồi cả chuỗi", email);
+            refreshTokenRevocations.revoke(family, Instant.now().plusMillis(jwtUtil.getRefreshExpiration()));
+            throw new AuthException("Refresh token đã bị thu hồi");
         }
 
-        String token = jwtUtil.generateToken(user.getEmail(), user.getRole().name());
-        logger.info("Đăng nhập thành công cho: {}, vai trò: {}", user.getEmail(), user.getRole());
+        String role = claims.get(JwtUtil.ROLE_CLAIM, String.class);
+        return new AuthResponse(jwtUtil.generateToken(email, role, tokenVersion),
+                jwtUtil.generateRefreshToken(email, role, tokenVersion, family));
+    }
 
-        return new AuthResponse(token);
+    @Override
+    @Transactional
+    public void revokeTokens(String email) {
+        logger.info("Thu hồi mọi token của: {}", email);
+        userRepository.incrementTokenVersion(email);
+        userTokenVersions.reloadAfterCommit();
     }
 
     /**
@@ -0,0 +1,123 @@
+package com.benhvien1a.service.impl;
+
+import com.benhvien1a.dto.WorkingTemplateDTO;
+import com.benhvien1a.model.WorkingTemplate;
+import com.benhvien1a.repository.DepartmentRepository;
+import com.benhvien1a.repository.DoctorRepository;
+import com.benhvien1a.repository.WorkingTemplateRepository;
+import com.benhvien1a.response.DayAvailability;
+import com.benhvien1a.response.SlotAvailability;
+import com.benhvien1a.service.AvailabilityService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class AvailabilityServiceImpl implements AvailabilityService {
+    private static final Logger logger = LoggerFactory.getLogger(AvailabilityServiceImpl.class);
+    private final WorkingTemplateRepository workingTemplateRepository;
+    private final DoctorRepository doctorRepository;
+    private final DepartmentRepository departmentRepository;
+    private final SlotAvailabilityEngine slotAvailabilityEngine;
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<WorkingTemplate> getWorkingTemplates(Long doctorId, Long departmentId) {
+        logger.info("Fetching working templates with doctorId: {} and departmentId: {}", doctorId, departmentId);
+        if (doctorId != null) {
+            return workingTemplateRepository.findByDoctorIdOrderByDayOfWeekAscStartTimeAsc(doctorId);
+        }
+        if (departmentId != null) {
+            return workingTemplateRepository.findByDepartmentIdOrderByDayOfWeekAscStartTimeAsc(departmentId);
+        }
+        return workingTemplateRepository.findAll(Sort.by("dayOfWeek", "startTime"));
+    }
+
+    @Override
+    @Transactional
+    public WorkingTemplate createWorkingTemplate(WorkingTemplateDTO request) {
+        logger.info("Creating working template for doctorId: {} and departmentId: {}", request.getDoctorId(), request.getDepartmentId());
+        validate(request);
+        WorkingTemplate template = WorkingTemplate.builder()
+                .doctorId(request.getDoctorId())
+                .departmentId(request.getDepartmentId())
+                .dayOfWeek(request.getDayOfWeek())
+                .startTime(request.getStartTime())
+                .endTime(request.getEndTime())
+                .isActive(request.getIsActive() != null ? request.getIsActive() : true)
+                .createAt(LocalDateTime.now())
+                .updateAt(LocalDateTime.now())
+                .build();
+
+        WorkingTemplate saved = workingTemplateRepository.save(template);
+        slotAvailabilityEngine.reloadTemplatesAfterCommit();
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    public WorkingTemplate updateWorkingTemplate(Long id, WorkingTemplateDTO request) {
+        logger.info("Updating working template with ID: {}", id);
+        WorkingTemplate template = workingTemplateRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Working template not found with ID: " + id));
+        validate(request);
+
+        template.setDoctorId(request.getDoctorId());
+        template.setDepartmentId(request.getDepartmentId());
+        template.setDayOfWeek(request.getDayOfWeek());
+        template.setStartTime(request.getStartTime());
+        template.setEndTime(request.getEndTime());
+        template.setIsActive(request.getIsActive() != null ? request.getIsActive() : template.getIsActive());
+        template.setUpdateAt(LocalDateTime.now());
+
+        WorkingTemplate saved = workingTemplateRepository.save(template);
+        slotAvailabilityEngine.reloadTemplatesAfterCommit();
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    public void deleteWorkingTemplate(Long id) {
+        logger.info("Deleting working template with ID: {}", id);
+        WorkingTemplate template = workingTemplateRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Working template not found with ID: " + id));
+        workingTemplateRepository.delete(template);
+        slotAvailabilityEngine.reloadTemplatesAfterCommit();
+    }
+
+    @Override
+    public List<DayAvailability> getDepartmentMonthAvailability(String departmentSlug, YearMonth month) {
+        logger.info("Fetching availability of department slug: {} for month: {}", departmentSlug, month);
+        return slotAvailabilityEngine.getDepartmentMonth(departmentSlug, month);
+    }
+
+    @Override
+    public List<SlotAvailability> getDoctorDayAvailability(Long doctorId, LocalDate date) {
+        logger.info("Fetching availability of doctor ID: {} on: {}", doctorId, date);
+        return slotAvailabilityEngine.getDoctorDay(doctorId, date);
+    }
+
+    private void validate(WorkingTemplateDTO request) {
+        if ((request.getDoctorId() == null) == (request.getDepartmentId() == null)) {
+            throw new RuntimeException("Exactly one of doctorId and departmentId is required");
+        }
+        if (request.getDoctorId() != null && !doctorRepository.existsById(request.getDoctorId())) {
+            throw new RuntimeException("Doctor not found with ID: " + request.getDoctorId());
+        }
+        if (request.getDepartmentId() != null && !departmentRepository.existsById(request.getDepartmentId())) {
+            throw new RuntimeException("Department not found with ID: " + request.getDepartmentId());
+        }
+        if (slotAvailabilityEngine.rangeMask(request.getStartTime(), request.getEndTime()) == 0) {
+            throw new RuntimeException("Working hours must be a non-empty range aligned to the appointment slot grid");
+        }
+    }
+}
@@ -3,17 +3,24 @@ package com.benhvien1a.service.impl;
 import com.benhvien1a.dto.DepartmentDTO;
 import com.benhvien1a.model.Department;
 import com.benhvien1a.repository.DepartmentRepository;
+import com.benhvien1a.repository.projection.DepartmentSummary;
+import com.benhvien1a.repository.projection.ListVersion;
+import com.benhvien1a.response.CursorSlice;
 import com.benhvien1a.service.DepartmentService;
+import com.benhvien1a.service.SitemapService;
+import com.benhvien1a.util.KeysetCursor;
 import com.benhvien1a.util.SlugUtils;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
@@ -21,6 +28,9 @@ public class DepartmentServiceImpl implements DepartmentService {
     private static final Logger logger = LoggerFactory.getLogger(DepartmentServiceImpl.class);
     private final DepartmentRepository departmentRepository;
     private final CloudinaryService cloudinaryService;
+    private final SitemapService sitemapService;
+    private final DoctorDirectory doctorDirectory;
+    private final DoctorFacetIndex doctorFacetIndex;
 
     @Override
     @Transactional(readOnly = true)
@@ -31,9 +41,19 @@ public class DepartmentServiceImpl implements DepartmentService {
 
     @Override
     @Transactional(readOnly = true)
-    public Page<Department> getAllActiveDepartments(Pageable pageable) {
+    public Page<DepartmentSummary> getAllActiveDepartments(Pageable pageable) {
         logger.info("Fetching all active departments with pagination");
-        return departmentRepository.findByIsActiveTrue(pageable);
+        return departmentRepository.findActiveSummaries(pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorSlice<DepartmentSummary> getActiveDepartmentsAfter(String cursor, int size) {
+        logger.info("Fetching active departments after cursor: {}", cursor);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        return CursorSlice.of(
+                departmentRepository.findActiveSummariesAfter(after.getId(), PageRequest.of(0, KeysetCursor.clampSize(size))),
+                department -> KeysetCursor.encode(null, department.getId()));
     }
 
     @Override
@@ -43,6 +63,28 @@ public class DepartmentServiceImpl implements DepartmentService {
         return departmentRepository.findByNameAndIsActive(name, isActive, pageable);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorSlice<Department> getFilteredDepartmentsAfter(String name, Boolean isActive, String cursor, int size) {
+        logger.info("Fetching departments with name: {} and isActive: {} after cursor: {}", name, isActive, cursor);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        return CursorSlice.of(
+                departmentRepository.findByNameAndIsActiveAfter(name, isActive, after.getId(), PageRequest.of(0, KeysetCursor.clampSize(size))),
+                department -> KeysetCursor.encode(null, department.getId()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ListVersion getActiveDepartmentsVersion() {
+        return departmentRepository.findActiveVersion();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<LocalDateTime> getDepartmentUpdateAtBySlug(String slug) {
+        return departmentRepository.findUpdateAtBySlug(slug);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Department getDepartmentById(Long id) {
@@ -79,6 +121,9 @@ public class DepartmentServiceImpl implements DepartmentService {
                 .updateAt(LocalDateTime.now())
                 .build();
 
+        sitemapService.invalidateDepartments();
+        doctorDirectory.rebuildAfterCommit();
+        doctorFacetIndex.rebuildAfterCommit();
         return departmentRepository.save(department);
     }
 
@@ -104,6 +149,9 @@ public class DepartmentServiceImpl implements DepartmentService {
         department.setIsActive(request.getIsActive() != null ? request.getIsActive() : department.getIsActive());
         department.setUpdateAt(LocalDateTime.now());
 
+        sitemapService.invalidateDepartments();
+        doctorDirectory.rebuildAfterCommit();
+        doctorFacetIndex.rebuildAfterCommit();
         return departmentRepository.save(department);
     }
 
@@ -113,6 +161,9 @@ public class DepartmentServiceImpl implements DepartmentService {
         logger.info("Deleting department with ID: {}", id);
         Department department = getDepartmentById(id);
         departmentRepository.delete(department);
+        sitemapService.invalidateDepartments();
+        doctorDirectory.rebuildAfterCommit();
+        doctorFacetIndex.rebuildAfterCommit();
     }
 
     @Override
@@ -123,5 +174,8 @@ public class DepartmentServiceImpl implements DepartmentService {
         department.setIsActive(!department.getIsActive());
         department.setUpdateAt(LocalDateTime.now());
         departmentRepository.save(department);
+        sitemapService.invalidateDepartments();
+        doctorDirectory.rebuildAfterCommit();
+        doctorFacetIndex.rebuildAfterCommit();
     }
 }
\ No newline at end of file
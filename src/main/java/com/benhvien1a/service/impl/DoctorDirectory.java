@@ -0,0 +1,341 @@
+package com.benhvien1a.service.impl;
+
+import com.benhvien1a.model.Department;
+import com.benhvien1a.model.Doctor;
+import com.benhvien1a.model.Position;
+import com.benhvien1a.repository.DoctorRepository;
+import com.benhvien1a.repository.projection.DoctorSummary;
+import com.benhvien1a.repository.projection.ListVersion;
+import com.benhvien1a.response.CursorSlice;
+import com.benhvien1a.util.KeysetCursor;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Value;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.*;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Immutable in-memory snapshot of the active doctor roster for public endpoints.
+ * The snapshot is rebuilt from the database after every committed doctor/department write and
+ * swapped atomically (copy-on-write), so public reads are plain memory lookups without a DB connection.
+ * A rebuild that fails after commit keeps the previous snapshot and is retried on a schedule.
+ */
+@Service
+public class DoctorDirectory {
+    private static final Logger logger = LoggerFactory.getLogger(DoctorDirectory.class);
+
+    private final DoctorRepository doctorRepository;
+    private final TransactionTemplate rebuildTransaction;
+    private volatile Snapshot snapshot = Snapshot.build(List.of());
+    private volatile boolean stale;
+
+    public DoctorDirectory(DoctorRepository doctorRepository, PlatformTransactionManager transactionManager) {
+        this.doctorRepository = doctorRepository;
+        this.rebuildTransaction = new TransactionTemplate(transactionManager);
+        // Luôn đọc trong transaction mới để thấy dữ liệu vừa commit, kể cả khi gọi từ afterCommit
+        this.rebuildTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.rebuildTransaction.setReadOnly(true);
+    }
+
+    public Snapshot current() {
+        return snapshot;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        List<Doctor> doctors = rebuildTransaction.execute(status -> doctorRepository.findAllActiveWithDepartment());
+        snapshot = Snapshot.build(doctors);
+        stale = false;
+        logger.info("Doctor directory rebuilt with {} active doctors", doctors.size());
+    }
+
+    /**
+     * Rebuild once the current transaction commits, or immediately if there is none.
+     */
+    public void rebuildAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    rebuildOrRetryLater();
+                }
+            });
+        } else {
+            rebuildOrRetryLater();
+        }
+    }
+
+    /**
+     * Retry a rebuild that failed after a write committed.
+     */
+    @Scheduled(fixedDelayString = "${doctors.directory.retry-interval:5000}", initialDelayString = "${doctors.directory.retry-interval:5000}")
+    public void retryStaleRebuild() {
+        if (stale) {
+            rebuildOrRetryLater();
+        }
+    }
+
+    private void rebuildOrRetryLater() {
+        // Ghi dữ liệu đã commit: lỗi ở đây không được biến thành 500 cho request đó
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            stale = true;
+            logger.error("Doctor directory rebuild failed, keeping the previous snapshot and retrying: {}", e.getMessage(), e);
+        }
+    }
+
+    public static <T> Page<T> page(List<T> items, Pageable pageable) {
+        int from = (int) Math.min(pageable.getOffset(), items.size());
+        int to = Math.min(from + pageable.getPageSize(), items.size());
+        return new PageImpl<>(items.subList(from, to), pageable, items.size());
+    }
+
+    /**
+     * Keyset page over a list ordered by id descending.
+     */
+    public static CursorSlice<DoctorSummary> after(List<DoctorSummary> items, String cursor, int size) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        int limit = KeysetCursor.clampSize(size);
+        int from = 0;
+        if (after.getId() != null) {
+            int low = 0;
+            int high = items.size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (items.get(mid).getId() >= after.getId()) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            from = low;
+        }
+        int to = Math.min(from + limit, items.size());
+        Slice<DoctorSummary> slice = new SliceImpl<>(items.subList(from, to), PageRequest.of(0, limit), to < items.size());
+        return CursorSlice.of(slice, doctor -> KeysetCursor.encode(null, doctor.getId()));
+    }
+
+    /**
+     * One immutable version of the directory. Lists are ordered by id descending.
+     */
+    public static final class Snapshot {
+        private final List<DoctorSummary> active;
+        private final Map<Long, DoctorSummary> byId;
+        private final Map<String, DoctorDetail> bySlug;
+        private final Map<String, List<DoctorSummary>> byDepartmentSlug;
+        private final Map<Position, List<DoctorSummary>> byPosition;
+        private final Map<String, LocalDateTime> updateAtBySlug;
+        private final DoctorNameIndex nameIndex;
+
+        private Snapshot(List<DoctorSummary> active, Map<Long, DoctorSummary> byId, Map<String, DoctorDetail> bySlug,
+                         Map<String, List<DoctorSummary>> byDepartmentSlug,
+                         Map<Position, List<DoctorSummary>> byPosition,
+                         Map<String, LocalDateTime> updateAtBySlug) {
+            this.active = active;
+            this.byId = byId;
+            this.bySlug = bySlug;
+            this.byDepartmentSlug = byDepartmentSlug;
+            this.byPosition = byPosition;
+            this.updateAtBySlug = updateAtBySlug;
+            this.nameIndex = DoctorNameIndex.build(active);
+        }
+
+        private static Snapshot build(List<Doctor> doctors) {
+            List<Doctor> sorted = new ArrayList<>(doctors);
+            sorted.sort(Comparator.comparing(Doctor::getId).reversed());
+
+            List<DoctorSummary> active = new ArrayList<>();
+            Map<Long, DoctorSummary> byId = new HashMap<>();
+            Map<String, DoctorDetail> bySlug = new HashMap<>();
+            Map<String, List<DoctorSummary>> byDepartmentSlug = new HashMap<>();
+            Map<Position, List<DoctorSummary>> byPosition = new EnumMap<>(Position.class);
+            Map<String, LocalDateTime> updateAtBySlug = new HashMap<>();
+            for (Doctor doctor : sorted) {
+                Entry entry = Entry.of(doctor);
+                active.add(entry);
+                byId.put(entry.getId(), entry);
+                bySlug.put(doctor.getSlug(), DoctorDetail.of(doctor));
+                updateAtBySlug.put(doctor.getSlug(), entry.getLastUpdateAt());
+                if (entry.getDepartmentSlug() != null) {
+                    byDepartmentSlug.computeIfAbsent(entry.getDepartmentSlug(), s -> new ArrayList<>()).add(entry);
+                }
+                if (entry.getPosition() != null) {
+                    byPosition.computeIfAbsent(entry.getPosition(), p -> new ArrayList<>()).add(entry);
+                }
+            }
+            byDepartmentSlug.replaceAll((slug, list) -> List.copyOf(list));
+            byPosition.replaceAll((position, list) -> List.copyOf(list));
+            return new Snapshot(List.copyOf(active), Collections.unmodifiableMap(byId), Collections.unmodifiableMap(bySlug),
+                    Collections.unmodifiableMap(byDepartmentSlug), Collections.unmodifiableMap(byPosition),
+                    Collections.unmodifiableMap(updateAtBySlug));
+        }
+
+        /**
+         * Active doctors, optionally restricted to a position.
+         */
+        public List<DoctorSummary> getActive(Position position) {
+            return position == null ? active : byPosition.getOrDefault(position, List.of());
+        }
+
+        public List<DoctorSummary> getByDepartmentSlug(String departmentSlug) {
+            return byDepartmentSlug.getOrDefault(departmentSlug, List.of());
+        }
+
+        /**
+         * Typo-tolerant name autocomplete over active doctors.
+         */
+        public List<DoctorSummary> suggest(String query, int limit) {
+            return nameIndex.suggest(query, limit);
+        }
+
+        public Optional<DoctorSummary> findById(Long id) {
+            return Optional.ofNullable(byId.get(id));
+        }
+
+        /**
+         * A new Doctor built from the stored view on every call, so callers cannot change the snapshot.
+         */
+        public Optional<Doctor> findBySlug(String slug) {
+            return Optional.ofNullable(bySlug.get(slug)).map(DoctorDetail::toDoctor);
+        }
+
+        public Optional<LocalDateTime> findUpdateAtBySlug(String slug) {
+            return Optional.ofNullable(updateAtBySlug.get(slug));
+        }
+
+        /**
+         * Same shape as DoctorRepository.VERSION_SELECT: latest doctor/department update and row count.
+         */
+        public static ListVersion versionOf(List<DoctorSummary> doctors) {
+            LocalDateTime lastUpdateAt = null;
+            for (DoctorSummary doctor : doctors) {
+                LocalDateTime updateAt = doctor.getLastUpdateAt();
+                if (updateAt != null && (lastUpdateAt == null || updateAt.isAfter(lastUpdateAt))) {
+                    lastUpdateAt = updateAt;
+                }
+            }
+            return new Version(lastUpdateAt, (long) doctors.size());
+        }
+    }
+
+    /**
+     * Doctor card held by the snapshot; serializes like the DoctorSummary projection.
+     */
+    @Value
+    public static class Entry implements DoctorSummary {
+        Long id;
+        String fullName;
+        String slug;
+        String avatarUrl;
+        Position position;
+        Boolean isActive;
+        Long departmentId;
+        String departmentName;
+        String departmentSlug;
+        @JsonIgnore
+        LocalDateTime lastUpdateAt;
+
+        private static Entry of(Doctor doctor) {
+            Department department = doctor.getDepartment();
+            LocalDateTime lastUpdateAt = doctor.getUpdateAt();
+            if (department != null && department.getUpdateAt() != null
+                    && (lastUpdateAt == null || department.getUpdateAt().isAfter(lastUpdateAt))) {
+                lastUpdateAt = department.getUpdateAt();
+            }
+            return new Entry(doctor.getId(), doctor.getFullName(), doctor.getSlug(), doctor.getAvatarUrl(),
+                    doctor.getPosition(), doctor.getIsActive(),
+                    department != null ? department.getId() : null,
+                    department != null ? department.getName() : null,
+                    department != null ? department.getSlug() : null,
+                    lastUpdateAt);
+        }
+    }
+
+    /**
+     * Immutable copy of a doctor and its department, detached from the persistence context that loaded it.
+     */
+    @Value
+    private static class DoctorDetail {
+        Long id;
+        String fullName;
+        String slug;
+        String description;
+        String avatarUrl;
+        Position position;
+        Boolean isActive;
+        LocalDateTime createAt;
+        LocalDateTime updateAt;
+        DepartmentDetail department;
+
+        private static DoctorDetail of(Doctor doctor) {
+            return new DoctorDetail(doctor.getId(), doctor.getFullName(), doctor.getSlug(), doctor.getDescription(),
+                    doctor.getAvatarUrl(), doctor.getPosition(), doctor.getIsActive(), doctor.getCreateAt(),
+                    doctor.getUpdateAt(), doctor.getDepartment() != null ? DepartmentDetail.of(doctor.getDepartment()) : null);
+        }
+
+        private Doctor toDoctor() {
+            return Doctor.builder()
+                    .id(id)
+                    .fullName(fullName)
+                    .slug(slug)
+                    .description(description)
+                    .avatarUrl(avatarUrl)
+                    .position(position)
+                    .isActive(isActive)
+                    .createAt(createAt)
+                    .updateAt(updateAt)
+                    .department(department != null ? department.toDepartment() : null)
+                    .build();
+        }
+    }
+
+    @Value
+    private static class DepartmentDetail {
+        Long id;
+        String name;
+        String slug;
+        String description;
+        String thumbnail;
+        Boolean isActive;
+        LocalDateTime createAt;
+        LocalDateTime updateAt;
+
+        private static DepartmentDetail of(Department department) {
+            return new DepartmentDetail(department.getId(), department.getName(), department.getSlug(),
+                    department.getDescription(), department.getThumbnail(), department.getIsActive(),
+                    department.getCreateAt(), department.getUpdateAt());
+        }
+
+        private Department toDepartment() {
+            return Department.builder()
+                    .id(id)
+                    .name(name)
+                    .slug(slug)
+                    .description(description)
+                    .thumbnail(thumbnail)
+                    .isActive(isActive)
+                    .createAt(createAt)
+                    .updateAt(updateAt)
+                    .build();
+        }
+    }
+
+    @Value
+    private static class Version implements ListVersion {
+        LocalDateTime lastUpdateAt;
+        Long total;
+    }
+}
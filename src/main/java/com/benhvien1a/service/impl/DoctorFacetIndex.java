@@ -0,0 +1,224 @@
+package com.benhvien1a.service.impl;
+
+import com.benhvien1a.model.Doctor;
+import com.benhvien1a.model.Position;
+import com.benhvien1a.repository.DoctorRepository;
+import com.benhvien1a.repository.projection.DoctorFacetRow;
+import com.benhvien1a.response.DoctorFacets;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Bitmap index of doctors by department, position and active flag, one BitSet per value keyed by doctor id.
+ * Any filter combination is answered by intersecting bitmaps, facet counts by intersecting with each
+ * value's bitmap, and pages are read by walking set bits from the highest id down (id DESC).
+ * The index is copy-on-write: writes build a new version and swap it in after commit.
+ * Department writes rebuild it from the database, since they can change which doctors each department holds.
+ */
+@Service
+public class DoctorFacetIndex {
+    private static final Logger logger = LoggerFactory.getLogger(DoctorFacetIndex.class);
+
+    private final DoctorRepository doctorRepository;
+    private final TransactionTemplate rebuildTransaction;
+    private volatile Bitmaps bitmaps = new Bitmaps();
+
+    public DoctorFacetIndex(DoctorRepository doctorRepository, PlatformTransactionManager transactionManager) {
+        this.doctorRepository = doctorRepository;
+        this.rebuildTransaction = new TransactionTemplate(transactionManager);
+        // Đọc trong transaction mới để thấy dữ liệu vừa commit khi gọi từ afterCommit
+        this.rebuildTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.rebuildTransaction.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        Bitmaps next = new Bitmaps();
+        List<DoctorFacetRow> rows = rebuildTransaction.execute(status -> doctorRepository.findAllFacetRows());
+        for (DoctorFacetRow row : rows) {
+            next.set(row.getId(), row.getIsActive(), row.getPosition(), row.getDepartmentId());
+        }
+        bitmaps = next;
+        logger.info("Doctor facet index built with {} doctors", rows.size());
+    }
+
+    public void updateAfterCommit(Doctor doctor) {
+        Long id = doctor.getId();
+        Boolean isActive = doctor.getIsActive();
+        Position position = doctor.getPosition();
+        Long departmentId = doctor.getDepartment() != null ? doctor.getDepartment().getId() : null;
+        runAfterCommit(() -> apply(next -> next.set(id, isActive, position, departmentId)));
+    }
+
+    public void removeAfterCommit(Long id) {
+        runAfterCommit(() -> apply(next -> next.clear(id)));
+    }
+
+    /**
+     * Rebuild from the database once the current transaction commits, or immediately if there is none.
+     */
+    public void rebuildAfterCommit() {
+        runAfterCommit(() -> {
+            try {
+                rebuild();
+            } catch (RuntimeException e) {
+                // Dữ liệu đã commit: giữ bản cũ thay vì trả 500 cho request
+                logger.error("Doctor facet index rebuild failed: {}", e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Ids matching the filter; null arguments mean no filter on that attribute.
+     */
+    public BitSet filter(Boolean isActive, Long departmentId, Position position) {
+        return bitmaps.filter(isActive, departmentId, position, null);
+    }
+
+    public DoctorFacets facets(Boolean isActive, Long departmentId, Position position) {
+        Bitmaps current = bitmaps;
+        Map<Long, Integer> departments = new TreeMap<>();
+        BitSet withoutDepartment = current.filter(isActive, null, position, null);
+        current.byDepartment.forEach((id, bits) -> {
+            int count = intersectionSize(withoutDepartment, bits);
+            if (count > 0) {
+                departments.put(id, count);
+            }
+        });
+        Map<Position, Integer> positions = new EnumMap<>(Position.class);
+        BitSet withoutPosition = current.filter(isActive, departmentId, null, null);
+        current.byPosition.forEach((value, bits) -> {
+            int count = intersectionSize(withoutPosition, bits);
+            if (count > 0) {
+                positions.put(value, count);
+            }
+        });
+        Map<Boolean, Integer> active = new LinkedHashMap<>();
+        BitSet withoutActive = current.filter(null, departmentId, position, null);
+        active.put(true, intersectionSize(withoutActive, current.active));
+        active.put(false, intersectionSize(withoutActive, current.inactive));
+        return new DoctorFacets(current.filter(isActive, departmentId, position, null).cardinality(),
+                departments, positions, active);
+    }
+
+    /**
+     * Up to limit ids of the bitmap, highest first, skipping the first offset ids.
+     */
+    public static List<Long> idsDescending(BitSet ids, long offset, int limit) {
+        List<Long> page = new ArrayList<>(limit);
+        long skipped = 0;
+        for (int id = ids.length() - 1; id >= 0 && page.size() < limit; id = ids.previousSetBit(id - 1)) {
+            if (skipped++ >= offset) {
+                page.add((long) id);
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Up to limit ids strictly below afterId (or from the top when null), highest first.
+     */
+    public static List<Long> idsBefore(BitSet ids, Long afterId, int limit) {
+        List<Long> page = new ArrayList<>(limit);
+        int start = afterId == null ? ids.length() - 1 : (int) Math.min(ids.length() - 1, afterId - 1);
+        for (int id = start < 0 ? -1 : ids.previousSetBit(start); id >= 0 && page.size() < limit; id = ids.previousSetBit(id - 1)) {
+            page.add((long) id);
+        }
+        return page;
+    }
+
+    private static int intersectionSize(BitSet a, BitSet b) {
+        BitSet copy = (BitSet) a.clone();
+        copy.and(b);
+        return copy.cardinality();
+    }
+
+    private synchronized void apply(Consumer<Bitmaps> change) {
+        Bitmaps next = bitmaps.copy();
+        change.accept(next);
+        bitmaps = next;
+    }
+
+    private static void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * One version of the index. Mutated only while being built, never after it is published.
+     */
+    private static final class Bitmaps {
+        private final BitSet all = new BitSet();
+        private final BitSet active = new BitSet();
+        private final BitSet inactive = new BitSet();
+        private final Map<Long, BitSet> byDepartment = new HashMap<>();
+        private final Map<Position, BitSet> byPosition = new EnumMap<>(Position.class);
+
+        private Bitmaps copy() {
+            Bitmaps copy = new Bitmaps();
+            copy.all.or(all);
+            copy.active.or(active);
+            copy.inactive.or(inactive);
+            byDepartment.forEach((id, bits) -> copy.byDepartment.put(id, (BitSet) bits.clone()));
+            byPosition.forEach((position, bits) -> copy.byPosition.put(position, (BitSet) bits.clone()));
+            return copy;
+        }
+
+        private void set(Long id, Boolean isActive, Position position, Long departmentId) {
+            clear(id);
+            int bit = Math.toIntExact(id);
+            all.set(bit);
+            (Boolean.TRUE.equals(isActive) ? active : inactive).set(bit);
+            if (position != null) {
+                byPosition.computeIfAbsent(position, p -> new BitSet()).set(bit);
+            }
+            if (departmentId != null) {
+                byDepartment.computeIfAbsent(departmentId, d -> new BitSet()).set(bit);
+            }
+        }
+
+        private void clear(Long id) {
+            int bit = Math.toIntExact(id);
+            all.clear(bit);
+            active.clear(bit);
+            inactive.clear(bit);
+            byPosition.values().forEach(bits -> bits.clear(bit));
+            byDepartment.values().forEach(bits -> bits.clear(bit));
+            byPosition.values().removeIf(BitSet::isEmpty);
+            byDepartment.values().removeIf(BitSet::isEmpty);
+        }
+
+        private BitSet filter(Boolean isActive, Long departmentId, Position position, BitSet base) {
+            BitSet result = (BitSet) (base != null ? base : all).clone();
+            if (isActive != null) {
+                result.and(isActive ? active : inactive);
+            }
+            if (departmentId != null) {
+                result.and(byDepartment.getOrDefault(departmentId, new BitSet()));
+            }
+            if (position != null) {
+                result.and(byPosition.getOrDefault(position, new BitSet()));
+            }
+            return result;
+        }
+    }
+}
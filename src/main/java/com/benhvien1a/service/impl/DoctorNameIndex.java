@@ -0,0 +1,194 @@
+package com.benhvien1a.service.impl;
+
+import com.benhvien1a.repository.projection.DoctorSummary;
+
+import java.text.Normalizer;
+import java.util.*;
+
+/**
+ * Immutable autocomplete index over doctor names.
+ * Name tokens are folded (no Vietnamese diacritics, lower case) into a trie; a query is matched
+ * token by token with a bounded Levenshtein walk over the trie, the last token as a prefix,
+ * so "nguyen van a" and "ngyen van" both find "Nguyễn Văn An".
+ */
+final class DoctorNameIndex {
+    private static final int MAX_TERM_LENGTH = 32;
+    // Chi phí: mỗi lỗi chính tả nặng hơn việc chỉ khớp tiền tố
+    private static final int EDIT_COST = 10;
+    private static final int PREFIX_COST = 1;
+
+    private final List<DoctorSummary> doctors;
+    private final Node root;
+
+    private DoctorNameIndex(List<DoctorSummary> doctors, Node root) {
+        this.doctors = doctors;
+        this.root = root;
+    }
+
+    static DoctorNameIndex build(List<DoctorSummary> doctors) {
+        Node root = new Node();
+        for (int i = 0; i < doctors.size(); i++) {
+            for (String token : tokenize(doctors.get(i).getFullName())) {
+                Node node = root;
+                for (int c = 0; c < token.length(); c++) {
+                    node = node.children.computeIfAbsent(token.charAt(c), k -> new Node());
+                }
+                node.addTerminal(i);
+            }
+        }
+        root.freeze();
+        return new DoctorNameIndex(doctors, root);
+    }
+
+    /**
+     * Doctors whose name matches every query token, best matches first.
+     */
+    List<DoctorSummary> suggest(String query, int limit) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        Map<Integer, Integer> totals = null;
+        for (int i = 0; i < terms.size(); i++) {
+            String term = terms.get(i);
+            Map<Integer, Integer> matches = new HashMap<>();
+            int[] firstRow = new int[term.length() + 1];
+            for (int j = 0; j < firstRow.length; j++) {
+                firstRow[j] = j;
+            }
+            boolean prefix = i == terms.size() - 1;
+            walk(root, firstRow, term, prefix, maxEdits(term), matches);
+
+            if (totals == null) {
+                totals = matches;
+            } else {
+                Map<Integer, Integer> previous = totals;
+                totals = new HashMap<>();
+                for (Map.Entry<Integer, Integer> entry : matches.entrySet()) {
+                    Integer cost = previous.get(entry.getKey());
+                    if (cost != null) {
+                        totals.put(entry.getKey(), cost + entry.getValue());
+                    }
+                }
+            }
+            if (totals.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        List<Map.Entry<Integer, Integer>> ranked = new ArrayList<>(totals.entrySet());
+        ranked.sort(Comparator.<Map.Entry<Integer, Integer>>comparingInt(Map.Entry::getValue)
+                .thenComparingInt(entry -> doctors.get(entry.getKey()).getFullName().length())
+                .thenComparingInt(Map.Entry::getKey));
+        List<DoctorSummary> result = new ArrayList<>(Math.min(limit, ranked.size()));
+        for (int i = 0; i < ranked.size() && result.size() < limit; i++) {
+            result.add(doctors.get(ranked.get(i).getKey()));
+        }
+        return result;
+    }
+
+    /**
+     * Depth-first walk carrying one Levenshtein row per trie node; subtrees whose best
+     * possible distance exceeds maxEdits are pruned.
+     */
+    private static void walk(Node node, int[] previousRow, String term, boolean prefix, int maxEdits,
+                             Map<Integer, Integer> matches) {
+        for (Map.Entry<Character, Node> child : node.children.entrySet()) {
+            char c = child.getKey();
+            int[] row = new int[previousRow.length];
+            row[0] = previousRow[0] + 1;
+            int rowMin = row[0];
+            for (int j = 1; j < row.length; j++) {
+                int substitution = previousRow[j - 1] + (term.charAt(j - 1) == c ? 0 : 1);
+                row[j] = Math.min(substitution, Math.min(row[j - 1] + 1, previousRow[j] + 1));
+                rowMin = Math.min(rowMin, row[j]);
+            }
+
+            Node next = child.getValue();
+            int distance = row[row.length - 1];
+            if (distance <= maxEdits) {
+                int exactCost = distance * EDIT_COST;
+                for (int doctor : next.terminals) {
+                    matches.merge(doctor, exactCost, Math::min);
+                }
+                if (prefix) {
+                    for (int doctor : next.subtree) {
+                        matches.merge(doctor, exactCost + PREFIX_COST, Math::min);
+                    }
+                }
+            }
+            if (rowMin <= maxEdits) {
+                walk(next, row, term, prefix, maxEdits, matches);
+            }
+        }
+    }
+
+    private static int maxEdits(String term) {
+        if (term.length() <= 2) {
+            return 0;
+        }
+        return term.length() <= 5 ? 1 : 2;
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        // Một lượt duy nhất: NFD tách dấu thành ký tự tổ hợp, bỏ các dấu đó, đ -> d, chữ thường, cắt token
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder(MAX_TERM_LENGTH);
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (c == 'đ' || c == 'Đ') {
+                c = 'd';
+            } else if (c >= 'A' && c <= 'Z') {
+                c = (char) (c + ('a' - 'A'));
+            }
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                if (token.length() < MAX_TERM_LENGTH) {
+                    token.append(c);
+                }
+            } else if (token.length() > 0) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        if (token.length() > 0) {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+
+    private static final class Node {
+        private final Map<Character, Node> children = new TreeMap<>();
+        private int[] terminals = new int[0];
+        // Tất cả bác sĩ có một token bắt đầu bằng tiền tố của node này
+        private int[] subtree = new int[0];
+
+        private void addTerminal(int doctor) {
+            if (Arrays.stream(terminals).noneMatch(existing -> existing == doctor)) {
+                terminals = Arrays.copyOf(terminals, terminals.length + 1);
+                terminals[terminals.length - 1] = doctor;
+            }
+        }
+
+        private int[] freeze() {
+            Set<Integer> all = new TreeSet<>();
+            for (int doctor : terminals) {
+                all.add(doctor);
+            }
+            for (Node child : children.values()) {
+                for (int doctor : child.freeze()) {
+                    all.add(doctor);
+                }
+            }
+            subtree = all.stream().mapToInt(Integer::intValue).toArray();
+            return subtree;
+        }
+    }
+}
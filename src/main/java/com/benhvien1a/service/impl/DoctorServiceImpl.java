@@ -6,26 +6,51 @@ import com.benhvien1a.model.Doctor;
 import com.benhvien1a.model.Position;
 import com.benhvien1a.repository.DepartmentRepository;
 import com.benhvien1a.repository.DoctorRepository;
+import com.benhvien1a.repository.projection.DoctorExportRow;
+import com.benhvien1a.repository.projection.DoctorSummary;
+import com.benhvien1a.repository.projection.ListVersion;
+import com.benhvien1a.response.CursorSlice;
+import com.benhvien1a.response.DoctorFacets;
 import com.benhvien1a.service.DoctorService;
+import com.benhvien1a.service.SitemapService;
+import com.benhvien1a.util.ExportFormat;
+import com.benhvien1a.util.KeysetCursor;
+import com.benhvien1a.util.RowExporter;
 import com.benhvien1a.util.SlugUtils;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class DoctorServiceImpl implements DoctorService {
     private static final Logger logger = LoggerFactory.getLogger(DoctorServiceImpl.class);
+    private static final int MAX_AUTOCOMPLETE_LIMIT = 20;
+    private static final List<String> DOCTOR_EXPORT_COLUMNS = List.of("id", "fullName", "slug", "position", "isActive", "departmentName", "avatarUrl", "createAt", "updateAt");
     private final DoctorRepository doctorRepository;
     private final DepartmentRepository departmentRepository;
     private final CloudinaryService cloudinaryService;
+    private final SitemapService sitemapService;
+    private final DoctorDirectory doctorDirectory;
+    private final DoctorFacetIndex doctorFacetIndex;
 
     @Override
     @Transactional(readOnly = true)
@@ -35,10 +60,9 @@ public class DoctorServiceImpl implements DoctorService {
     }
 
     @Override
-    @Transactional(readOnly = true)
-    public Page<Doctor> getAllActiveDoctors(Pageable pageable) {
-        logger.info("Fetching all active doctors with pagination");
-        return doctorRepository.findByIsActiveTrue(pageable);
+    public Page<DoctorSummary> getAllActiveDoctors(Position position, Pageable pageable) {
+        logger.info("Fetching all active doctors with position: {} and pagination", position);
+        return DoctorDirectory.page(doctorDirectory.current().getActive(position), pageable);
     }
 
     @Override
@@ -48,14 +72,80 @@ public class DoctorServiceImpl implements DoctorService {
                 "Fetching doctors with fullName: {}, isActive: {}, departmentName: {}, position: {}",
                 fullName, isActive, departmentId, position
         );
+        if (fullName == null && pageable.getSort().isUnsorted()) {
+            // Lọc bằng giao các bitmap, chỉ truy vấn DB cho đúng các id của trang
+            BitSet ids = doctorFacetIndex.filter(isActive, departmentId, position);
+            List<Doctor> doctors = loadInOrder(DoctorFacetIndex.idsDescending(ids, pageable.getOffset(), pageable.getPageSize()));
+            return new PageImpl<>(doctors, pageable, ids.cardinality());
+        }
         return doctorRepository.findByFullNameAndIsActiveAndPositionAndDepartmentId(fullName, isActive, departmentId, position, pageable);
     }
 
     @Override
-    @Transactional(readOnly = true)
-    public Page<Doctor> getDoctorsByDepartmentSlug(String departmentSlug, Pageable pageable) {
+    public DoctorFacets getDoctorFacets(Boolean isActive, Long departmentId, Position position) {
+        logger.info("Fetching doctor facets with isActive: {}, departmentId: {}, position: {}", isActive, departmentId, position);
+        return doctorFacetIndex.facets(isActive, departmentId, position);
+    }
+
+    @Override
+    public Page<DoctorSummary> getDoctorsByDepartmentSlug(String departmentSlug, Pageable pageable) {
         logger.info("Fetching doctors by department slug: {}", departmentSlug);
-        return doctorRepository.findByDepartmentSlug(departmentSlug, pageable);
+        return DoctorDirectory.page(doctorDirectory.current().getByDepartmentSlug(departmentSlug), pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorSlice<Doctor> getFilteredDoctorsAfter(String fullName, Boolean isActive, Long departmentId, Position position, String cursor, int size) {
+        logger.info(
+                "Fetching doctors with fullName: {}, isActive: {}, departmentId: {}, position: {} after cursor: {}",
+                fullName, isActive, departmentId, position, cursor
+        );
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        if (fullName == null) {
+            int limit = KeysetCursor.clampSize(size);
+            BitSet ids = doctorFacetIndex.filter(isActive, departmentId, position);
+            List<Long> pageIds = DoctorFacetIndex.idsBefore(ids, after.getId(), limit + 1);
+            boolean hasNext = pageIds.size() > limit;
+            List<Doctor> doctors = loadInOrder(hasNext ? pageIds.subList(0, limit) : pageIds);
+            return CursorSlice.of(new SliceImpl<>(doctors, PageRequest.of(0, limit), hasNext),
+                    doctor -> KeysetCursor.encode(null, doctor.getId()));
+        }
+        return CursorSlice.of(
+                doctorRepository.findByFullNameAndIsActiveAndPositionAndDepartmentIdAfter(
+                        fullName, isActive, departmentId, position, after.getId(), PageRequest.of(0, KeysetCursor.clampSize(size))),
+                doctor -> KeysetCursor.encode(null, doctor.getId()));
+    }
+
+    @Override
+    public CursorSlice<DoctorSummary> getActiveDoctorsAfter(Position position, String cursor, int size) {
+        logger.info("Fetching active doctors with position: {} after cursor: {}", position, cursor);
+        return DoctorDirectory.after(doctorDirectory.current().getActive(position), cursor, size);
+    }
+
+    @Override
+    public CursorSlice<DoctorSummary> getDoctorsByDepartmentSlugAfter(String departmentSlug, String cursor, int size) {
+        logger.info("Fetching doctors by department slug: {} after cursor: {}", departmentSlug, cursor);
+        return DoctorDirectory.after(doctorDirectory.current().getByDepartmentSlug(departmentSlug), cursor, size);
+    }
+
+    @Override
+    public ListVersion getActiveDoctorsVersion(Position position) {
+        return DoctorDirectory.Snapshot.versionOf(doctorDirectory.current().getActive(position));
+    }
+
+    @Override
+    public ListVersion getDoctorsByDepartmentSlugVersion(String departmentSlug) {
+        return DoctorDirectory.Snapshot.versionOf(doctorDirectory.current().getByDepartmentSlug(departmentSlug));
+    }
+
+    @Override
+    public List<DoctorSummary> autocompleteDoctors(String query, int limit) {
+        return doctorDirectory.current().suggest(query, Math.max(1, Math.min(MAX_AUTOCOMPLETE_LIMIT, limit)));
+    }
+
+    @Override
+    public Optional<LocalDateTime> getDoctorUpdateAtBySlug(String slug) {
+        return doctorDirectory.current().findUpdateAtBySlug(slug);
     }
 
     @Override
@@ -67,10 +157,10 @@ public class DoctorServiceImpl implements DoctorService {
     }
 
     @Override
-    @Transactional(readOnly = true)
     public Doctor getDoctorBySlug(String slug) {
         logger.info("Fetching doctor with slug: {}", slug);
-        return doctorRepository.findBySlug(slug)
+        // Chỉ bác sĩ đang hoạt động mới hiển thị công khai
+        return doctorDirectory.current().findBySlug(slug)
                 .orElseThrow(() -> new RuntimeException("Doctor not found with slug: " + slug));
     }
 
@@ -101,7 +191,11 @@ public class DoctorServiceImpl implements DoctorService {
                 .updateAt(LocalDateTime.now())
                 .build();
 
-        return doctorRepository.save(doctor);
+        Doctor saved = doctorRepository.save(doctor);
+        sitemapService.invalidateDoctors();
+        doctorDirectory.rebuildAfterCommit();
+        doctorFacetIndex.updateAfterCommit(saved);
+        return saved;
     }
 
     @Override
@@ -133,7 +227,11 @@ public class DoctorServiceImpl implements DoctorService {
         doctor.setIsActive(request.getIsActive() != null ? request.getIsActive() : doctor.getIsActive());
         doctor.setUpdateAt(LocalDateTime.now());
 
-        return doctorRepository.save(doctor);
+        Doctor saved = doctorRepository.save(doctor);
+        sitemapService.invalidateDoctors();
+        doctorDirectory.rebuildAfterCommit();
+        doctorFacetIndex.updateAfterCommit(saved);
+        return saved;
     }
 
     @Override
@@ -142,6 +240,9 @@ public class DoctorServiceImpl implements DoctorService {
         logger.info("Deleting doctor with ID: {}", id);
         Doctor doctor = getDoctorById(id);
         doctorRepository.delete(doctor);
+        sitemapService.invalidateDoctors();
+        doctorDirectory.rebuildAfterCommit();
+        doctorFacetIndex.removeAfterCommit(id);
     }
 
     @Override
@@ -152,6 +253,9 @@ public class DoctorServiceImpl implements DoctorService {
         doctor.setIsActive(!doctor.getIsActive());
         doctor.setUpdateAt(LocalDateTime.now());
         doctorRepository.save(doctor);
+        sitemapService.invalidateDoctors();
+        doctorDirectory.rebuildAfterCommit();
+        doctorFacetIndex.updateAfterCommit(doctor);
     }
 
     @Override
@@ -162,4 +266,36 @@ public class DoctorServiceImpl implements DoctorService {
                 .map(Position::name)
                 .toList();
     }
+
+    /**
+     * Loads doctors by id and keeps the order of the given ids.
+     */
+    private List<Doctor> loadInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Doctor> byId = new HashMap<>();
+        for (Doctor doctor : doctorRepository.findAllWithDepartmentByIdIn(ids)) {
+            byId.put(doctor.getId(), doctor);
+        }
+        List<Doctor> doctors = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Doctor doctor = byId.get(id);
+            if (doctor != null) {
+                doctors.add(doctor);
+            }
+        }
+        return doctors;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportDoctors(ExportFormat format, OutputStream out) throws IOException {
+        logger.info("Exporting doctors as {}", format);
+        try (Stream<DoctorExportRow> rows = doctorRepository.streamAllForExport()) {
+            return RowExporter.write(rows, format, DOCTOR_EXPORT_COLUMNS, row -> new Object[]{
+                        row.getId(), row.getFullName(), row.getSlug(), row.getPosition(), row.getIsActive(),
+                        row.getDepartmentName(), row.getAvatarUrl(), row.getCreateAt(), row.getUpdateAt()}, out);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,68 @@
+package com.benhvien1a.service.impl;
+
+import com.benhvien1a.service.CaptchaVerifier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.RestClient;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Google reCAPTCHA siteverify client. One shared JDK HttpClient keeps connections (and TLS sessions)
+ * alive between bookings; connect and read timeouts bound how long a booking can wait for Google.
+ */
+@Service
+@ConditionalOnProperty(name = "recaptcha.verifier", havingValue = "google", matchIfMissing = true)
+public class GoogleRecaptchaVerifier implements CaptchaVerifier {
+    private static final Logger logger = LoggerFactory.getLogger(GoogleRecaptchaVerifier.class);
+    private static final String VERIFY_URL = "https://www.google.com/recaptcha/api/siteverify";
+
+    private final String secretKey;
+    private final RestClient restClient;
+
+    public GoogleRecaptchaVerifier(@Value("${recaptcha.secret}") String secretKey,
+                                   @Value("${recaptcha.connect-timeout:1000}") long connectTimeoutMillis,
+                                   @Value("${recaptcha.read-timeout:2000}") long readTimeoutMillis) {
+        this.secretKey = secretKey;
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMillis));
+        this.restClient = RestClient.builder()
+                .baseUrl(VERIFY_URL)
+                .requestFactory(requestFactory)
+                .build();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean verify(String token) {
+        MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+        params.add("secret", secretKey);
+        params.add("response", token);
+
+        Map<String, Object> body = restClient.post()
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                .body(params)
+                .retrieve()
+                .body(Map.class);
+
+        logger.debug("🔍 Google reCAPTCHA raw response: {}", body);
+
+        boolean success = body != null && Boolean.TRUE.equals(body.get("success"));
+        if (!success) {
+            logger.warn("❌ reCAPTCHA verification failed. Error: {}", body != null ? body.get("error-codes") : null);
+        }
+        return success;
+    }
+}
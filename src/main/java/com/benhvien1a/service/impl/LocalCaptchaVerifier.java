@@ -0,0 +1,30 @@
+package com.benhvien1a.service.impl;
+
+import com.benhvien1a.service.CaptchaVerifier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+/**
+ * Offline stand-in for tests and local environments (recaptcha.verifier=local): accepts exactly
+ * the configured token, or any non-blank token when none is configured. Never calls Google.
+ */
+@Service
+@ConditionalOnProperty(name = "recaptcha.verifier", havingValue = "local")
+public class LocalCaptchaVerifier implements CaptchaVerifier {
+    private static final Logger logger = LoggerFactory.getLogger(LocalCaptchaVerifier.class);
+
+    private final String acceptedToken;
+
+    public LocalCaptchaVerifier(@Value("${recaptcha.local.accepted-token:}") String acceptedToken) {
+        this.acceptedToken = acceptedToken;
+        logger.warn("reCAPTCHA is checked locally, no request is sent to Google");
+    }
+
+    @Override
+    public boolean verify(String token) {
+        return acceptedToken.isEmpty() || acceptedToken.equals(token);
+    }
+}
@@ -0,0 +1,134 @@
+package com.benhvien1a.service.impl;
+
+import com.benhvien1a.exception.LoginLockedException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Failed-login throttling by normalized email and by client IP, checked before any DB access or hashing.
+ * Each key keeps the timestamps of its last N failures (a sliding-window log); the N-th failure inside the
+ * window locks the key, for base-lockout doubled on every further lockout up to max-lockout.
+ * State lives in size-bounded caches, so rotating emails or IPs cannot grow it without limit.
+ */
+@Service
+public class LoginThrottle {
+    private static final Logger logger = LoggerFactory.getLogger(LoginThrottle.class);
+    private static final String LOCKED_MESSAGE = "Đăng nhập sai quá nhiều lần, vui lòng thử lại sau";
+
+    private final boolean enabled;
+    private final long windowMillis;
+    private final int maxFailuresPerAccount;
+    private final int maxFailuresPerIp;
+    private final long baseLockoutMillis;
+    private final long maxLockoutMillis;
+    private final Cache<String, AttemptLog> accounts;
+    private final Cache<String, AttemptLog> clients;
+
+    public LoginThrottle(@Value("${auth.login-throttle.enabled:true}") boolean enabled,
+                         @Value("${auth.login-throttle.window-minutes:15}") long windowMinutes,
+                         @Value("${auth.login-throttle.max-failures-per-account:5}") int maxFailuresPerAccount,
+                         @Value("${auth.login-throttle.max-failures-per-ip:20}") int maxFailuresPerIp,
+                         @Value("${auth.login-throttle.base-lockout-seconds:30}") long baseLockoutSeconds,
+                         @Value("${auth.login-throttle.max-lockout-seconds:3600}") long maxLockoutSeconds,
+                         @Value("${auth.login-throttle.max-tracked-keys:100000}") long maxTrackedKeys) {
+        this.enabled = enabled;
+        this.windowMillis = Duration.ofMinutes(windowMinutes).toMillis();
+        this.maxFailuresPerAccount = Math.max(1, maxFailuresPerAccount);
+        this.maxFailuresPerIp = Math.max(1, maxFailuresPerIp);
+        this.baseLockoutMillis = Duration.ofSeconds(baseLockoutSeconds).toMillis();
+        this.maxLockoutMillis = Duration.ofSeconds(maxLockoutSeconds).toMillis();
+        // Giữ trạng thái đủ lâu để mức khoá tăng dần còn tác dụng giữa các đợt thử
+        Duration idle = Duration.ofMillis(windowMillis + maxLockoutMillis);
+        this.accounts = Caffeine.newBuilder().expireAfterAccess(idle).maximumSize(maxTrackedKeys).build();
+        this.clients = Caffeine.newBuilder().expireAfterAccess(idle).maximumSize(maxTrackedKeys).build();
+    }
+
+    /**
+     * Throw LoginLockedException if the account or the client IP is currently locked out.
+     */
+    public void checkAllowed(String email, String clientIp) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long wait = Math.max(lockedFor(accounts, normalize(email), now), lockedFor(clients, clientIp, now));
+        if (wait > 0) {
+            logger.debug("Login locked for {} from {} ({} ms left)", email, clientIp, wait);
+            throw new LoginLockedException(LOCKED_MESSAGE, Math.max(1, (wait + 999) / 1000));
+        }
+    }
+
+    public void recordFailure(String email, String clientIp) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        String account = normalize(email);
+        if (account != null) {
+            accounts.get(account, k -> new AttemptLog(maxFailuresPerAccount)).fail(now, windowMillis, baseLockoutMillis, maxLockoutMillis);
+        }
+        if (clientIp != null) {
+            clients.get(clientIp, k -> new AttemptLog(maxFailuresPerIp)).fail(now, windowMillis, baseLockoutMillis, maxLockoutMillis);
+        }
+    }
+
+    /**
+     * A successful login clears the account's history; the IP keeps its own, shared with other accounts.
+     */
+    public void recordSuccess(String email) {
+        String account = normalize(email);
+        if (enabled && account != null) {
+            accounts.invalidate(account);
+        }
+    }
+
+    static String normalize(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static long lockedFor(Cache<String, AttemptLog> logs, String key, long now) {
+        if (key == null) {
+            return 0;
+        }
+        AttemptLog log = logs.getIfPresent(key);
+        return log != null ? log.lockedFor(now) : 0;
+    }
+
+    /**
+     * Ring buffer of the last N failure times plus the lockout level of one key.
+     */
+    private static final class AttemptLog {
+        private final long[] failures;
+        private int next;
+        private int count;
+        private int lockouts;
+        private long lockedUntil;
+
+        private AttemptLog(int capacity) {
+            this.failures = new long[capacity];
+        }
+
+        private synchronized long lockedFor(long now) {
+            return Math.max(0, lockedUntil - now);
+        }
+
+        private synchronized void fail(long now, long windowMillis, long baseLockoutMillis, long maxLockoutMillis) {
+            failures[next] = now;
+            next = (next + 1) % failures.length;
+            count = Math.min(count + 1, failures.length);
+            // Khi bộ đệm đầy, failures[next] là lần sai cũ nhất trong N lần gần nhất
+            if (count == failures.length && now - failures[next] < windowMillis) {
+                lockouts++;
+                long lockout = baseLockoutMillis << Math.min(lockouts - 1, 20);
+                lockedUntil = now + Math.min(lockout, maxLockoutMillis);
+            }
+        }
+    }
+}
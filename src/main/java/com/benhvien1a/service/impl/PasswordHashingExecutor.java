@@ -0,0 +1,106 @@
+package com.benhvien1a.service.impl;
+
+import com.benhvien1a.exception.ServiceBusyException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs BCrypt work on a small dedicated pool instead of Tomcat request threads.
+ * At most `threads` hashes run at once and `queue-capacity` wait; a full queue, or a wait longer than
+ * queue-timeout, is reported as ServiceBusyException, so a burst of logins cannot take every request
+ * thread and starve content endpoints.
+ */
+@Service
+public class PasswordHashingExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHashingExecutor.class);
+    private static final String BUSY_MESSAGE = "Hệ thống đang bận, vui lòng thử lại sau";
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final long queueTimeoutMillis;
+
+    public PasswordHashingExecutor(PasswordEncoder passwordEncoder,
+                                   @Value("${auth.password-hashing.threads:2}") int threads,
+                                   @Value("${auth.password-hashing.queue-capacity:32}") int queueCapacity,
+                                   @Value("${auth.password-hashing.queue-timeout-ms:3000}") long queueTimeoutMillis) {
+        this.passwordEncoder = passwordEncoder;
+        this.queueTimeoutMillis = queueTimeoutMillis;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdown();
+    }
+
+    /**
+     * PasswordEncoder.matches on the hashing pool, waiting at most queue-timeout for the result.
+     */
+    public boolean matches(String rawPassword, String encodedPassword) {
+        Future<Boolean> result;
+        try {
+            result = executor.submit(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+        } catch (RejectedExecutionException e) {
+            throw new ServiceBusyException(BUSY_MESSAGE);
+        }
+        try {
+            return result.get(queueTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            throw new ServiceBusyException(BUSY_MESSAGE);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.cancel(true);
+            throw new ServiceBusyException(BUSY_MESSAGE);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Password verification failed", e.getCause());
+        }
+    }
+
+    /**
+     * True if the stored hash was made with other settings (e.g. a lower BCrypt cost) than the current encoder.
+     */
+    public boolean needsRehash(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Hash the password with the current settings in the background and hand the new hash to onHashed.
+     * Skipped when the pool is full; the next successful login tries again.
+     */
+    public void rehashLater(String rawPassword, Consumer<String> onHashed) {
+        try {
+            executor.execute(() -> {
+                try {
+                    onHashed.accept(passwordEncoder.encode(rawPassword));
+                } catch (Exception e) {
+                    logger.warn("Không thể cập nhật mã băm mật khẩu: {}", e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.debug("Password hashing pool is full, rehash postponed");
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.benhvien1a.service.impl;
+
+import com.benhvien1a.model.Post;
+import com.benhvien1a.repository.PostRepository;
+import com.benhvien1a.util.PostContentUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Opt-in startup job (posts.backfill.enabled) that fills excerpt, word count and reading time for posts
+ * created before those columns existed. Content is only read, never rewritten. Posts are walked by id in
+ * batches, each in its own transaction, and every changed post gets a new updateAt so HTTP validators change.
+ */
+@Service
+public class PostDerivedContentBackfill {
+    private static final Logger logger = LoggerFactory.getLogger(PostDerivedContentBackfill.class);
+
+    private final PostRepository postRepository;
+    private final PublishedPostCache publishedPostCache;
+    private final PostTrendingService postTrendingService;
+    private final TransactionTemplate batchTransaction;
+    private final boolean enabled;
+    private final int batchSize;
+
+    public PostDerivedContentBackfill(PostRepository postRepository,
+                                      PublishedPostCache publishedPostCache,
+                                      PostTrendingService postTrendingService,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${posts.backfill.enabled:false}") boolean enabled,
+                                      @Value("${posts.backfill.batch-size:100}") int batchSize) {
+        this.postRepository = postRepository;
+        this.publishedPostCache = publishedPostCache;
+        this.postTrendingService = postTrendingService;
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+        this.batchTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        if (!enabled) {
+            return;
+        }
+        long lastId = 0;
+        int filled = 0;
+        while (true) {
+            long afterId = lastId;
+            List<Post> batch = batchTransaction.execute(status -> fillBatch(afterId));
+            if (batch.isEmpty()) {
+                break;
+            }
+            filled += batch.size();
+            lastId = batch.get(batch.size() - 1).getId();
+            batch.forEach(post -> {
+                publishedPostCache.evict(post.getSlug());
+                postTrendingService.updateMetadata(post);
+            });
+        }
+        logger.info("Backfilled excerpt and reading time for {} posts", filled);
+    }
+
+    private List<Post> fillBatch(long afterId) {
+        List<Post> posts = postRepository.findByExcerptIsNullAndIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, batchSize));
+        LocalDateTime now = LocalDateTime.now();
+        for (Post post : posts) {
+            // Chỉ dùng bản đã làm sạch để tính excerpt, không ghi đè content
+            String text = PostContentUtils.toPlainText(PostContentUtils.sanitizeHtml(post.getContent()));
+            int wordCount = PostContentUtils.countWords(text);
+            post.setExcerpt(PostContentUtils.excerpt(text));
+            post.setWordCount(wordCount);
+            post.setReadingTimeMinutes(PostContentUtils.readingTimeMinutes(wordCount));
+            post.setUpdateAt(now);
+        }
+        return postRepository.saveAll(posts);
+    }
+}
@@ -0,0 +1,318 @@
+package com.benhvien1a.service.impl;
+
+import com.benhvien1a.model.Post;
+import com.benhvien1a.model.PostStatus;
+import com.benhvien1a.model.PostType;
+import com.benhvien1a.repository.PostRepository;
+import com.benhvien1a.response.PostSearchHit;
+import com.benhvien1a.util.SlugUtils;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory inverted index over post titles and content.
+ * Terms are folded with SlugUtils.removeVietnameseDiacritics so "benh vien" matches "bệnh viện",
+ * and results are ranked with BM25 (title terms boosted). The last query term also matches as a prefix.
+ */
+@Service
+@RequiredArgsConstructor
+public class PostSearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(PostSearchIndex.class);
+    private static final int TITLE_BOOST = 3;
+    private static final int MAX_PREFIX_EXPANSION = 50;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int REBUILD_BATCH_SIZE = 200;
+
+    private final PostRepository postRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile Index index = new Index();
+    // Thay đổi đến trong lúc rebuild, được áp lại lên index mới trước khi thay thế
+    private List<Consumer<Index>> changesDuringRebuild;
+
+    /**
+     * Build a new index from the database without holding the lock, then swap it in.
+     * Writes committed meanwhile are applied to the current index and replayed on the new one.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        logger.info("Building post search index");
+        lock.writeLock().lock();
+        try {
+            changesDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Index rebuilt = new Index();
+        try {
+            Page<Post> page;
+            int pageNumber = 0;
+            do {
+                page = postRepository.findAll(PageRequest.of(pageNumber++, REBUILD_BATCH_SIZE, Sort.by("id")));
+                page.forEach(post -> rebuilt.put(analyze(post)));
+            } while (page.hasNext());
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                changesDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            changesDuringRebuild.forEach(change -> change.accept(rebuilt));
+            changesDuringRebuild = null;
+            index = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Post search index built with {} posts and {} terms", rebuilt.documents.size(), rebuilt.postings.size());
+    }
+
+    /**
+     * (Re)index the post once the current transaction commits, or immediately if there is none.
+     */
+    public void indexAfterCommit(Post post) {
+        IndexedPost document = analyze(post);
+        runAfterCommit(() -> apply(target -> {
+            target.remove(document.id);
+            target.put(document);
+        }));
+    }
+
+    public void removeAfterCommit(Long postId) {
+        runAfterCommit(() -> apply(target -> target.remove(postId)));
+    }
+
+    private void apply(Consumer<Index> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(index);
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ranked search. Every query term must match; null status/type means no filter.
+     * The last term also matches as a prefix, expanded to the MAX_PREFIX_EXPANSION indexed terms
+     * with that prefix that occur in the most posts.
+     */
+    public Page<PostSearchHit> search(String query, PostStatus status, PostType type, Pageable pageable) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            return Page.empty(pageable);
+        }
+
+        List<PostSearchHit> hits = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Index index = this.index;
+            TreeMap<String, Map<Long, Integer>> postings = index.postings;
+            Map<Long, IndexedPost> documents = index.documents;
+            List<List<Map.Entry<String, Map<Long, Integer>>>> clauses = new ArrayList<>();
+            for (int i = 0; i < terms.size(); i++) {
+                boolean prefix = i == terms.size() - 1;
+                List<Map.Entry<String, Map<Long, Integer>>> clause = expand(postings, terms.get(i), prefix);
+                if (clause.isEmpty()) {
+                    return Page.empty(pageable);
+                }
+                clauses.add(clause);
+            }
+
+            // Bắt đầu từ mệnh đề có ít tài liệu nhất để giao tập nhanh hơn
+            clauses.sort(Comparator.comparingInt(PostSearchIndex::clauseSize));
+            Set<Long> candidates = new HashSet<>();
+            clauses.get(0).forEach(entry -> candidates.addAll(entry.getValue().keySet()));
+            for (int i = 1; i < clauses.size() && !candidates.isEmpty(); i++) {
+                List<Map.Entry<String, Map<Long, Integer>>> clause = clauses.get(i);
+                candidates.removeIf(id -> clause.stream().noneMatch(entry -> entry.getValue().containsKey(id)));
+            }
+
+            double averageLength = documents.isEmpty() ? 1 : (double) index.totalLength / documents.size();
+            for (Long id : candidates) {
+                IndexedPost document = documents.get(id);
+                if ((status != null && document.status != status) || (type != null && document.type != type)) {
+                    continue;
+                }
+                double score = 0;
+                for (List<Map.Entry<String, Map<Long, Integer>>> clause : clauses) {
+                    for (Map.Entry<String, Map<Long, Integer>> entry : clause) {
+                        Integer tf = entry.getValue().get(id);
+                        if (tf != null) {
+                            score += bm25(documents.size(), tf, entry.getValue().size(), document.length, averageLength);
+                        }
+                    }
+                }
+                hits.add(document.toHit(score));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        hits.sort(Comparator.comparingDouble(PostSearchHit::getScore).reversed()
+                .thenComparing(PostSearchHit::getId, Comparator.reverseOrder()));
+        int from = (int) Math.min(pageable.getOffset(), hits.size());
+        int to = Math.min(from + pageable.getPageSize(), hits.size());
+        return new PageImpl<>(hits.subList(from, to), pageable, hits.size());
+    }
+
+    private static List<Map.Entry<String, Map<Long, Integer>>> expand(TreeMap<String, Map<Long, Integer>> postings,
+                                                                      String term, boolean prefix) {
+        if (!prefix) {
+            Map<Long, Integer> exact = postings.get(term);
+            return exact != null ? List.of(Map.entry(term, exact)) : List.of();
+        }
+        // Giữ MAX_PREFIX_EXPANSION từ phổ biến nhất (nhiều bài viết nhất), không phải 50 từ đầu theo thứ tự chữ cái
+        PriorityQueue<Map.Entry<String, Map<Long, Integer>>> matches =
+                new PriorityQueue<>(Comparator.comparingInt(entry -> entry.getValue().size()));
+        for (Map.Entry<String, Map<Long, Integer>> entry : postings.tailMap(term, true).entrySet()) {
+            if (!entry.getKey().startsWith(term)) {
+                break;
+            }
+            matches.add(entry);
+            if (matches.size() > MAX_PREFIX_EXPANSION) {
+                matches.poll();
+            }
+        }
+        return new ArrayList<>(matches);
+    }
+
+    private static int clauseSize(List<Map.Entry<String, Map<Long, Integer>>> clause) {
+        return clause.stream().mapToInt(entry -> entry.getValue().size()).sum();
+    }
+
+    private static double bm25(int n, int tf, int documentFrequency, int length, double averageLength) {
+        double idf = Math.log(1 + (n - documentFrequency + 0.5) / (documentFrequency + 0.5));
+        return idf * (tf * (K1 + 1)) / (tf + K1 * (1 - B + B * length / averageLength));
+    }
+
+    private static IndexedPost analyze(Post post) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        List<String> titleTerms = tokenize(post.getTitle());
+        List<String> contentTerms = tokenize(stripHtml(post.getContent()));
+        titleTerms.forEach(term -> frequencies.merge(term, TITLE_BOOST, Integer::sum));
+        contentTerms.forEach(term -> frequencies.merge(term, 1, Integer::sum));
+        int length = Math.max(1, titleTerms.size() * TITLE_BOOST + contentTerms.size());
+        return new IndexedPost(post.getId(), post.getTitle(), post.getSlug(), post.getType(), post.getStatus(),
+                post.getThumbnailUrl(), post.getPublishAt(), frequencies, length);
+    }
+
+    private static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String folded = SlugUtils.removeVietnameseDiacritics(text).toLowerCase(Locale.ROOT);
+        List<String> terms = new ArrayList<>();
+        for (String token : folded.split("[^a-z0-9]+")) {
+            if (!token.isEmpty()) {
+                terms.add(token);
+            }
+        }
+        return terms;
+    }
+
+    private static String stripHtml(String html) {
+        return html == null ? null : html.replaceAll("<[^>]*>", " ").replaceAll("&[a-zA-Z#0-9]+;", " ");
+    }
+
+    private static void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Postings and documents of one index generation; only modified under the write lock.
+     */
+    private static final class Index {
+        private final TreeMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+        private final Map<Long, IndexedPost> documents = new HashMap<>();
+        private long totalLength;
+
+        private void put(IndexedPost document) {
+            documents.put(document.id, document);
+            totalLength += document.length;
+            document.termFrequencies.forEach((term, tf) ->
+                    postings.computeIfAbsent(term, t -> new HashMap<>()).put(document.id, tf));
+        }
+
+        private void remove(Long id) {
+            IndexedPost previous = documents.remove(id);
+            if (previous == null) {
+                return;
+            }
+            totalLength -= previous.length;
+            for (String term : previous.termFrequencies.keySet()) {
+                Map<Long, Integer> posting = postings.get(term);
+                if (posting != null) {
+                    posting.remove(id);
+                    if (posting.isEmpty()) {
+                        postings.remove(term);
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class IndexedPost {
+        private final Long id;
+        private final String title;
+        private final String slug;
+        private final PostType type;
+        private final PostStatus status;
+        private final String thumbnailUrl;
+        private final LocalDateTime publishAt;
+        private final Map<String, Integer> termFrequencies;
+        private final int length;
+
+        private IndexedPost(Long id, String title, String slug, PostType type, PostStatus status, String thumbnailUrl,
+                            LocalDateTime publishAt, Map<String, Integer> termFrequencies, int length) {
+            this.id = id;
+            this.title = title;
+            this.slug = slug;
+            this.type = type;
+            this.status = status;
+            this.thumbnailUrl = thumbnailUrl;
+            this.publishAt = publishAt;
+            this.termFrequencies = termFrequencies;
+            this.length = length;
+        }
+
+        private PostSearchHit toHit(double score) {
+            return new PostSearchHit(id, title, slug, type, status, thumbnailUrl, publishAt, score);
+        }
+    }
+}
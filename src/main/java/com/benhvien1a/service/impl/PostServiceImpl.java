@@ -5,25 +5,47 @@ import com.benhvien1a.model.Post;
 import com.benhvien1a.model.PostStatus;
 import com.benhvien1a.model.PostType;
 import com.benhvien1a.repository.PostRepository;
+import com.benhvien1a.repository.projection.PostListVersion;
+import com.benhvien1a.repository.projection.PostExportRow;
+import com.benhvien1a.repository.projection.PostSummary;
+import com.benhvien1a.response.CursorSlice;
+import com.benhvien1a.response.PostSearchHit;
+import com.benhvien1a.response.TrendingPost;
 import com.benhvien1a.service.PostService;
+import com.benhvien1a.service.SitemapService;
+import com.benhvien1a.util.ExportFormat;
+import com.benhvien1a.util.KeysetCursor;
+import com.benhvien1a.util.PostContentUtils;
+import com.benhvien1a.util.RowExporter;
 import com.benhvien1a.util.SlugUtils;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class PostServiceImpl implements PostService {
     private static final Logger logger = LoggerFactory.getLogger(PostServiceImpl.class);
+    private static final List<String> POST_EXPORT_COLUMNS = List.of("id", "title", "slug", "type", "status", "excerpt", "wordCount", "viewCount", "publishAt", "createAt", "updateAt");
     private final PostRepository postRepository;
     private final CloudinaryService cloudinaryService;
+    private final PostViewCountService postViewCountService;
+    private final PublishedPostCache publishedPostCache;
+    private final PostSearchIndex postSearchIndex;
+    private final PostTrendingService postTrendingService;
+    private final SitemapService sitemapService;
 
     @Override
     @Transactional(readOnly = true)
@@ -34,9 +56,9 @@ public class PostServiceImpl implements PostService {
 
     @Override
     @Transactional(readOnly = true)
-    public Page<Post> getAllActivePosts(Pageable pageable) {
+    public Page<PostSummary> getAllActivePosts(Pageable pageable) {
         logger.info("Fetching all active posts with pagination");
-        return postRepository.findByStatus(PostStatus.PUBLIC, pageable);
+        return postRepository.findSummariesByStatus(PostStatus.PUBLIC, pageable);
     }
 
     @Override
@@ -48,12 +70,63 @@ public class PostServiceImpl implements PostService {
 
     @Override
     @Transactional(readOnly = true)
-    public Page<Post> getPostsByType(PostType type, Pageable pageable) {
+    public CursorSlice<PostSummary> getActivePostsAfter(String cursor, int size) {
+        logger.info("Fetching active posts after cursor: {}", cursor);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        return CursorSlice.of(
+                postRepository.findSummariesByStatusAfter(PostStatus.PUBLIC, after.getTimestamp(), after.getId(),
+                        PageRequest.of(0, KeysetCursor.clampSize(size))),
+                post -> KeysetCursor.encode(post.getPublishAt(), post.getId()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorSlice<PostSummary> getPostsByTypeAfter(PostType type, String cursor, int size) {
+        logger.info("Fetching posts by type: {} after cursor: {}", type, cursor);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        return CursorSlice.of(
+                postRepository.findSummariesByTypeAfter(type, after.getTimestamp(), after.getId(),
+                        PageRequest.of(0, KeysetCursor.clampSize(size))),
+                post -> KeysetCursor.encode(post.getPublishAt(), post.getId()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorSlice<Post> getFilteredPostsAfter(String title, PostStatus status, PostType type, String cursor, int size) {
+        logger.info("Fetching posts with title: {}, status: {}, type: {} after cursor: {}", title, status, type, cursor);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        return CursorSlice.of(
+                postRepository.findByTitleAndStatusAndTypeAfter(title, status, type, after.getTimestamp(), after.getId(),
+                        PageRequest.of(0, KeysetCursor.clampSize(size))),
+                post -> KeysetCursor.encode(post.getPublishAt(), post.getId()));
+    }
+
+    @Override
+    public Page<PostSearchHit> searchPosts(String query, PostStatus status, PostType type, Pageable pageable) {
+        logger.info("Searching posts with query: {}, status: {}, type: {}", query, status, type);
+        return postSearchIndex.search(query, status, type, pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<PostSummary> getPostsByType(PostType type, Pageable pageable) {
         logger.info("Fetching posts by type: {}", type);
         if (!List.of(PostType.values()).contains(type)) {
             throw new RuntimeException("Invalid post type: " + type);
         }
-        return postRepository.findByType(type, pageable);
+        return postRepository.findSummariesByType(type, pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PostListVersion getActivePostsVersion() {
+        return postRepository.findVersionByStatus(PostStatus.PUBLIC);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PostListVersion getPostsByTypeVersion(PostType type) {
+        return postRepository.findVersionByType(type);
     }
 
     @Override
@@ -65,15 +138,18 @@ public class PostServiceImpl implements PostService {
     }
 
     @Override
-    @Transactional
     public Post getPostBySlug(String slug) {
         logger.info("Fetching post with slug: {}", slug);
 
-        Post post = postRepository.findBySlugAndStatus(slug,PostStatus.PUBLIC)
-                .orElseThrow(() -> new RuntimeException("Post not found with slug: " + slug));
+        // Không mở transaction ở đây: cache hit không cần lấy connection DB
+        Post post = publishedPostCache.get(slug);
+        if (post == null) {
+            throw new RuntimeException("Post not found with slug: " + slug);
+        }
 
-        // Tăng viewCount
-        post.setViewCount(post.getViewCount() + 1);
+        // Tăng viewCount (ghi dồn, flush định kỳ bởi PostViewCountService)
+        postViewCountService.recordView(post.getId());
+        postTrendingService.recordView(post);
         return post;
     }
 
@@ -106,8 +182,13 @@ public class PostServiceImpl implements PostService {
                 .updateAt(LocalDateTime.now())
                 .viewCount(0)
                 .build();
+        applyDerivedContent(post);
 
-        return postRepository.save(post);
+        publishedPostCache.evict(slug);
+        Post saved = postRepository.save(post);
+        postSearchIndex.indexAfterCommit(saved);
+        sitemapService.invalidatePosts(saved.getType());
+        return saved;
     }
 
     @Override
@@ -115,6 +196,8 @@ public class PostServiceImpl implements PostService {
     public Post updatePost(Long id, PostDTO request) {
         logger.info("Updating post with ID: {}", id);
         Post post = getPostById(id);
+        String oldSlug = post.getSlug();
+        PostType oldType = post.getType();
 
         String newSlug = post.getSlug();
         if (request.getTitle() != null && !request.getTitle().equals(post.getTitle())) {
@@ -127,7 +210,10 @@ public class PostServiceImpl implements PostService {
 
         post.setTitle(request.getTitle() != null ? request.getTitle() : post.getTitle());
         post.setSlug(newSlug);
-        post.setContent(request.getContent() != null ? request.getContent() : post.getContent());
+        if (request.getContent() != null) {
+            post.setContent(request.getContent());
+            applyDerivedContent(post);
+        }
         post.setType(request.getType() != null ? PostType.valueOf(request.getType()) : post.getType());
         post.setThumbnailUrl(thumbnailUrl);
         if (request.getStatus() != null) {
@@ -138,7 +224,25 @@ public class PostServiceImpl implements PostService {
         }
         post.setUpdateAt(LocalDateTime.now());
 
-        return postRepository.save(post);
+        publishedPostCache.evict(oldSlug, newSlug);
+        Post saved = postRepository.save(post);
+        postSearchIndex.indexAfterCommit(saved);
+        postTrendingService.updateMetadata(saved);
+        sitemapService.invalidatePosts(oldType, saved.getType());
+        return saved;
+    }
+
+    /**
+     * Tính excerpt, số từ, thời gian đọc và làm sạch HTML một lần khi ghi.
+     */
+    private void applyDerivedContent(Post post) {
+        String html = PostContentUtils.sanitizeHtml(post.getContent());
+        String text = PostContentUtils.toPlainText(html);
+        int wordCount = PostContentUtils.countWords(text);
+        post.setContent(html);
+        post.setExcerpt(PostContentUtils.excerpt(text));
+        post.setWordCount(wordCount);
+        post.setReadingTimeMinutes(PostContentUtils.readingTimeMinutes(wordCount));
     }
 
     @Override
@@ -147,6 +251,11 @@ public class PostServiceImpl implements PostService {
         logger.info("Deleting post with ID: {}", id);
         Post post = getPostById(id);
         postRepository.delete(post);
+        postViewCountService.forget(id);
+        publishedPostCache.evict(post.getSlug());
+        postSearchIndex.removeAfterCommit(id);
+        postTrendingService.forget(id);
+        sitemapService.invalidatePosts(post.getType());
     }
 
     @Override
@@ -158,6 +267,10 @@ public class PostServiceImpl implements PostService {
         post.setUpdateAt(LocalDateTime.now());
         post.setPublishAt(LocalDateTime.now());
         postRepository.save(post);
+        publishedPostCache.evict(post.getSlug());
+        postSearchIndex.indexAfterCommit(post);
+        postTrendingService.updateMetadata(post);
+        sitemapService.invalidatePosts(post.getType());
     }
 
     @Override
@@ -168,4 +281,26 @@ public class PostServiceImpl implements PostService {
                 .map(Enum::name)
                 .toList();
     }
-}
\ No newline at end of file
+
+    @Override
+    public List<TrendingPost> getTrendingPosts(PostType type, int limit) {
+        logger.info("Fetching trending posts with type: {} and limit: {}", type, limit);
+        return postTrendingService.getTrending(type, limit);
+    }
+
+    @Override
+    public Map<String, Object> getPublishedPostCacheStats() {
+        return publishedPostCache.getStats();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportPosts(ExportFormat format, OutputStream out) throws IOException {
+        logger.info("Exporting posts as {}", format);
+        try (Stream<PostExportRow> rows = postRepository.streamAllForExport()) {
+            return RowExporter.write(rows, format, POST_EXPORT_COLUMNS, row -> new Object[]{
+                        row.getId(), row.getTitle(), row.getSlug(), row.getType(), row.getStatus(), row.getExcerpt(),
+                        row.getWordCount(), row.getViewCount(), row.getPublishAt(), row.getCreateAt(), row.getUpdateAt()}, out);
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package com.benhvien1a.service.impl;
+
+import com.benhvien1a.model.Post;
+import com.benhvien1a.model.PostStatus;
+import com.benhvien1a.model.PostType;
+import com.benhvien1a.model.TrendingSnapshot;
+import com.benhvien1a.repository.PostRepository;
+import com.benhvien1a.repository.TrendingSnapshotRepository;
+import com.benhvien1a.repository.projection.PostSummary;
+import com.benhvien1a.response.TrendingPost;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sliding-window "most read" ranking of published posts.
+ * Views are counted per post in hourly buckets; when an hour closes its bucket is truncated to the
+ * heaviest hitters. Rankings (overall and per PostType) are recomputed periodically so reads are O(K),
+ * and the window is snapshotted to the database so a restart does not reset it.
+ */
+@Service
+public class PostTrendingService {
+    private static final Logger logger = LoggerFactory.getLogger(PostTrendingService.class);
+    private static final long HOUR_MILLIS = 3_600_000L;
+    private static final long SNAPSHOT_ID = 1L;
+    private static final int SNAPSHOT_FORMAT = 1;
+
+    private final PostRepository postRepository;
+    private final TrendingSnapshotRepository trendingSnapshotRepository;
+    private final int windowHours;
+    private final int bucketCapacity;
+    private final int maxK;
+
+    // Các bucket đã đóng, cũ nhất ở đầu; chỉ truy cập khi giữ lock của this
+    private final Deque<ClosedBucket> closedBuckets = new ArrayDeque<>();
+    private final Map<Long, PostMeta> metadata = new ConcurrentHashMap<>();
+    private final AtomicReference<OpenBucket> current = new AtomicReference<>(new OpenBucket(currentHour()));
+    private volatile List<TrendingPost> overallRanking = List.of();
+    private volatile Map<PostType, List<TrendingPost>> rankingByType = Map.of();
+
+    public PostTrendingService(PostRepository postRepository,
+                               TrendingSnapshotRepository trendingSnapshotRepository,
+                               @Value("${posts.trending.window-hours:168}") int windowHours,
+                               @Value("${posts.trending.bucket-capacity:500}") int bucketCapacity,
+                               @Value("${posts.trending.max-k:50}") int maxK) {
+        this.postRepository = postRepository;
+        this.trendingSnapshotRepository = trendingSnapshotRepository;
+        this.windowHours = Math.max(1, windowHours);
+        this.bucketCapacity = Math.max(1, bucketCapacity);
+        this.maxK = Math.max(1, maxK);
+    }
+
+    /**
+     * Record one view of a published post. Lock-free except for the hourly rotation.
+     */
+    public void recordView(Post post) {
+        long hour = currentHour();
+        OpenBucket bucket = current.get();
+        if (bucket.hour != hour) {
+            bucket = rotate(hour);
+        }
+        bucket.counts.computeIfAbsent(post.getId(), id -> new LongAdder()).increment();
+        metadata.computeIfAbsent(post.getId(), id -> PostMeta.of(post));
+    }
+
+    /**
+     * Refresh the title/slug/thumbnail shown for a post after it was edited.
+     */
+    public void updateMetadata(Post post) {
+        if (post.getStatus() != PostStatus.PUBLIC) {
+            forget(post.getId());
+        } else if (metadata.containsKey(post.getId())) {
+            metadata.put(post.getId(), PostMeta.of(post));
+        }
+    }
+
+    /**
+     * Exclude a hidden or deleted post from the ranking. Its counts age out of the window.
+     */
+    public void forget(Long postId) {
+        metadata.remove(postId);
+        overallRanking = withoutPost(overallRanking, postId);
+        Map<PostType, List<TrendingPost>> byType = new EnumMap<>(PostType.class);
+        rankingByType.forEach((type, ranking) -> byType.put(type, withoutPost(ranking, postId)));
+        rankingByType = byType;
+    }
+
+    /**
+     * Top posts of the window, most viewed first. A null type means all types.
+     */
+    public List<TrendingPost> getTrending(PostType type, int limit) {
+        List<TrendingPost> ranking = type == null ? overallRanking : rankingByType.getOrDefault(type, List.of());
+        return ranking.subList(0, Math.max(0, Math.min(limit, ranking.size())));
+    }
+
+    @Scheduled(fixedDelayString = "${posts.trending.refresh-interval:60000}")
+    public void refresh() {
+        long hour = currentHour();
+        if (current.get().hour != hour) {
+            rotate(hour);
+        }
+
+        Map<Long, Long> totals = new HashMap<>();
+        synchronized (this) {
+            for (ClosedBucket bucket : closedBuckets) {
+                for (int i = 0; i < bucket.ids.length; i++) {
+                    totals.merge(bucket.ids[i], bucket.counts[i], Long::sum);
+                }
+            }
+        }
+        current.get().counts.forEach((id, adder) -> totals.merge(id, adder.sum(), Long::sum));
+
+        List<TrendingPost> ranked = new ArrayList<>();
+        totals.forEach((id, views) -> {
+            PostMeta meta = metadata.get(id);
+            if (meta != null && views > 0) {
+                ranked.add(meta.toTrendingPost(views));
+            }
+        });
+        ranked.sort(Comparator.comparingLong(TrendingPost::getViews).reversed()
+                .thenComparing(TrendingPost::getId, Comparator.reverseOrder()));
+
+        Map<PostType, List<TrendingPost>> byType = new EnumMap<>(PostType.class);
+        for (TrendingPost post : ranked) {
+            List<TrendingPost> ranking = byType.computeIfAbsent(post.getType(), t -> new ArrayList<>());
+            if (ranking.size() < maxK) {
+                ranking.add(post);
+            }
+        }
+        byType.replaceAll((type, ranking) -> List.copyOf(ranking));
+        overallRanking = List.copyOf(ranked.subList(0, Math.min(maxK, ranked.size())));
+        rankingByType = byType;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void restoreSnapshot() {
+        try {
+            Optional<TrendingSnapshot> snapshot = trendingSnapshotRepository.findById(SNAPSHOT_ID);
+            if (snapshot.isPresent()) {
+                readSnapshot(snapshot.get().getData());
+                logger.info("Restored trending snapshot taken at {}", snapshot.get().getUpdateAt());
+            }
+            Set<Long> ids = new HashSet<>();
+            synchronized (this) {
+                closedBuckets.forEach(bucket -> Arrays.stream(bucket.ids).forEach(ids::add));
+            }
+            ids.addAll(current.get().counts.keySet());
+            if (!ids.isEmpty()) {
+                for (PostSummary summary : postRepository.findSummariesByIdInAndStatus(ids, PostStatus.PUBLIC)) {
+                    metadata.putIfAbsent(summary.getId(), PostMeta.of(summary));
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Failed to restore trending snapshot: {}", e.getMessage());
+        }
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${posts.trending.snapshot-interval:300000}",
+            initialDelayString = "${posts.trending.snapshot-interval:300000}")
+    public void scheduledSnapshot() {
+        snapshot();
+    }
+
+    @PreDestroy
+    public void snapshotOnShutdown() {
+        logger.info("Saving trending snapshot before shutdown");
+        snapshot();
+    }
+
+    public void snapshot() {
+        try {
+            trendingSnapshotRepository.save(TrendingSnapshot.builder()
+                    .id(SNAPSHOT_ID)
+                    .data(writeSnapshot())
+                    .updateAt(LocalDateTime.now())
+                    .build());
+        } catch (Exception e) {
+            logger.error("Failed to save trending snapshot: {}", e.getMessage());
+        }
+    }
+
+    private synchronized OpenBucket rotate(long hour) {
+        OpenBucket open = current.get();
+        if (open.hour >= hour) {
+            return open;
+        }
+        OpenBucket next = new OpenBucket(hour);
+        // Thay bucket trước rồi mới đọc bucket cũ, để lượt xem ghi trong lúc xoay không bị mất
+        OpenBucket closed = current.getAndSet(next);
+        closedBuckets.addLast(ClosedBucket.of(closed.hour, snapshotCounts(closed), bucketCapacity));
+        evictExpired(hour);
+        return next;
+    }
+
+    private void evictExpired(long hour) {
+        while (!closedBuckets.isEmpty() && closedBuckets.peekFirst().hour <= hour - windowHours) {
+            closedBuckets.removeFirst();
+        }
+    }
+
+    private byte[] writeSnapshot() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            OpenBucket open = current.get();
+            List<ClosedBucket> buckets;
+            synchronized (this) {
+                buckets = new ArrayList<>(closedBuckets);
+            }
+            buckets.add(ClosedBucket.of(open.hour, snapshotCounts(open), Integer.MAX_VALUE));
+
+            out.writeInt(SNAPSHOT_FORMAT);
+            out.writeInt(buckets.size());
+            for (ClosedBucket bucket : buckets) {
+                out.writeLong(bucket.hour);
+                out.writeInt(bucket.ids.length);
+                for (int i = 0; i < bucket.ids.length; i++) {
+                    out.writeLong(bucket.ids[i]);
+                    out.writeLong(bucket.counts[i]);
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private void readSnapshot(byte[] data) throws IOException {
+        if (data == null || data.length == 0) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            if (in.readInt() != SNAPSHOT_FORMAT) {
+                logger.warn("Ignoring trending snapshot with unknown format");
+                return;
+            }
+            long hour = currentHour();
+            int bucketCount = in.readInt();
+            synchronized (this) {
+                for (int b = 0; b < bucketCount; b++) {
+                    long bucketHour = in.readLong();
+                    int size = in.readInt();
+                    Map<Long, Long> counts = new HashMap<>();
+                    for (int i = 0; i < size; i++) {
+                        counts.put(in.readLong(), in.readLong());
+                    }
+                    if (bucketHour == current.get().hour) {
+                        // Giờ hiện tại: cộng dồn vào bucket đang mở
+                        counts.forEach((id, count) ->
+                                current.get().counts.computeIfAbsent(id, k -> new LongAdder()).add(count));
+                    } else if (bucketHour < current.get().hour && bucketHour > hour - windowHours) {
+                        closedBuckets.addLast(ClosedBucket.of(bucketHour, counts, bucketCapacity));
+                    }
+                }
+                List<ClosedBucket> sorted = new ArrayList<>(closedBuckets);
+                sorted.sort(Comparator.comparingLong(bucket -> bucket.hour));
+                closedBuckets.clear();
+                closedBuckets.addAll(sorted);
+            }
+        }
+    }
+
+    private static Map<Long, Long> snapshotCounts(OpenBucket bucket) {
+        Map<Long, Long> counts = new HashMap<>();
+        bucket.counts.forEach((id, adder) -> counts.put(id, adder.sum()));
+        return counts;
+    }
+
+    private static List<TrendingPost> withoutPost(List<TrendingPost> ranking, Long postId) {
+        return ranking.stream().anyMatch(post -> post.getId().equals(postId))
+                ? ranking.stream().filter(post -> !post.getId().equals(postId)).toList()
+                : ranking;
+    }
+
+    private static long currentHour() {
+        return System.currentTimeMillis() / HOUR_MILLIS;
+    }
+
+    private static final class OpenBucket {
+        private final long hour;
+        private final Map<Long, LongAdder> counts = new ConcurrentHashMap<>();
+
+        private OpenBucket(long hour) {
+            this.hour = hour;
+        }
+    }
+
+    /**
+     * Immutable closed hour, keeping only its heaviest hitters.
+     */
+    private static final class ClosedBucket {
+        private final long hour;
+        private final long[] ids;
+        private final long[] counts;
+
+        private ClosedBucket(long hour, long[] ids, long[] counts) {
+            this.hour = hour;
+            this.ids = ids;
+            this.counts = counts;
+        }
+
+        private static ClosedBucket of(long hour, Map<Long, Long> counts, int capacity) {
+            List<Map.Entry<Long, Long>> entries = new ArrayList<>(counts.entrySet());
+            entries.removeIf(entry -> entry.getValue() <= 0);
+            if (entries.size() > capacity) {
+                entries.sort(Map.Entry.<Long, Long>comparingByValue().reversed());
+                entries = entries.subList(0, capacity);
+            }
+            long[] ids = new long[entries.size()];
+            long[] values = new long[entries.size()];
+            for (int i = 0; i < entries.size(); i++) {
+                ids[i] = entries.get(i).getKey();
+                values[i] = entries.get(i).getValue();
+            }
+            return new ClosedBucket(hour, ids, values);
+        }
+    }
+
+    private record PostMeta(Long id, String title, String slug, PostType type, String thumbnailUrl,
+                            LocalDateTime publishAt) {
+        private static PostMeta of(Post post) {
+            return new PostMeta(post.getId(), post.getTitle(), post.getSlug(), post.getType(),
+                    post.getThumbnailUrl(), post.getPublishAt());
+        }
+
+        private static PostMeta of(PostSummary summary) {
+            return new PostMeta(summary.getId(), summary.getTitle(), summary.getSlug(), summary.getType(),
+                    summary.getThumbnailUrl(), summary.getPublishAt());
+        }
+
+        private TrendingPost toTrendingPost(long views) {
+            return new TrendingPost(id, title, slug, type, thumbnailUrl, publishAt, views);
+        }
+    }
+}
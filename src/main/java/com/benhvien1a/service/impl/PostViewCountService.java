@@ -0,0 +1,116 @@
+package com.benhvien1a.service.impl;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind view counter for posts.
+ * Views are accumulated in memory (one striped LongAdder per post) and flushed
+ * to the posts table periodically as a single JDBC batch of relative updates.
+ */
+@Service
+@RequiredArgsConstructor
+public class PostViewCountService {
+    private static final Logger logger = LoggerFactory.getLogger(PostViewCountService.class);
+    private static final String FLUSH_SQL = "UPDATE posts SET view_count = view_count + ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Long, LongAdder> pendingViews = new ConcurrentHashMap<>();
+    // Bài có bộ đếm rỗng ở lần flush trước (chỉ dùng trong flush)
+    private Set<Long> idle = new HashSet<>();
+
+    /**
+     * Record one view of the given post. Never touches the database and takes no lock once the
+     * post's counter exists.
+     */
+    public void recordView(Long postId) {
+        pendingViews.computeIfAbsent(postId, k -> new LongAdder()).increment();
+    }
+
+    /**
+     * Views recorded for the post that have not been flushed yet.
+     */
+    public long getPendingViews(Long postId) {
+        LongAdder adder = pendingViews.get(postId);
+        return adder != null ? adder.sum() : 0;
+    }
+
+    /**
+     * Drop pending views of a deleted post.
+     */
+    public void forget(Long postId) {
+        pendingViews.remove(postId);
+    }
+
+    @Scheduled(fixedDelayString = "${posts.view-count.flush-interval:10000}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        logger.info("Flushing pending post views before shutdown");
+        flush();
+    }
+
+    /**
+     * Write all pending increments in one batch. Each counter is drained with sumThenReset, so views
+     * recorded concurrently with the flush stay in the adder for the next one; if the batch fails the
+     * drained amounts are added back. Counters are left in the map while in use and removed only when
+     * they were already empty at the previous flush and are still empty now.
+     */
+    public synchronized void flush() {
+        List<Long> ids = new ArrayList<>();
+        List<Object[]> batchArgs = new ArrayList<>();
+        Set<Long> empty = new HashSet<>();
+        pendingViews.forEach((id, adder) -> {
+            long count = adder.sumThenReset();
+            if (count > 0) {
+                ids.add(id);
+                batchArgs.add(new Object[]{count, id});
+            } else if (idle.contains(id)) {
+                removeIdle(id, adder);
+            } else {
+                empty.add(id);
+            }
+        });
+        idle = empty;
+        if (batchArgs.isEmpty()) {
+            return;
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(FLUSH_SQL, batchArgs);
+        } catch (Exception e) {
+            logger.error("Failed to flush view counts for {} posts: {}", ids.size(), e.getMessage());
+            for (int i = 0; i < ids.size(); i++) {
+                pendingViews.computeIfAbsent(ids.get(i), k -> new LongAdder()).add((Long) batchArgs.get(i)[0]);
+            }
+            return;
+        }
+        logger.debug("Flushed view counts for {} posts", ids.size());
+    }
+
+    private void removeIdle(Long id, LongAdder adder) {
+        if (pendingViews.remove(id, adder)) {
+            // Lượt xem vừa ghi vào adder đã bị gỡ: chuyển sang adder mới để không mất
+            long late = adder.sumThenReset();
+            if (late > 0) {
+                pendingViews.computeIfAbsent(id, k -> new LongAdder()).add(late);
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.benhvien1a.service.impl;
+
+import com.benhvien1a.model.Post;
+import com.benhvien1a.model.PostStatus;
+import com.benhvien1a.repository.PostRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Bounded read-through cache of published posts keyed by slug.
+ * Entries are weighed by their estimated heap size; every entry weighs at least
+ * maxWeightBytes / maxEntries so the cache is bounded both in memory and in entry count.
+ * Callers get a copy of the cached row, never the shared instance; entries are reloaded in the
+ * background after refresh-seconds so the flushed view count catches up, and unflushed views are added on read.
+ */
+@Service
+public class PublishedPostCache {
+    private static final Logger logger = LoggerFactory.getLogger(PublishedPostCache.class);
+    // Overhead ước tính cho object Post và các trường ngắn (ngày, enum, url...)
+    private static final int BASE_ENTRY_BYTES = 512;
+
+    private final LoadingCache<String, Post> cache;
+    private final PostViewCountService postViewCountService;
+
+    public PublishedPostCache(PostRepository postRepository,
+                              PostViewCountService postViewCountService,
+                              @Value("${posts.cache.max-entries:1000}") long maxEntries,
+                              @Value("${posts.cache.max-weight-bytes:33554432}") long maxWeightBytes,
+                              @Value("${posts.cache.refresh-seconds:30}") long refreshSeconds) {
+        this.postViewCountService = postViewCountService;
+        long minEntryWeight = Math.max(1, maxWeightBytes / Math.max(1, maxEntries));
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeightBytes)
+                .weigher((String slug, Post post) -> (int) Math.min(Integer.MAX_VALUE,
+                        Math.max(minEntryWeight, estimateBytes(slug, post))))
+                .refreshAfterWrite(Duration.ofSeconds(refreshSeconds))
+                .recordStats()
+                .build(slug -> postRepository.findBySlugAndStatus(slug, PostStatus.PUBLIC).orElse(null));
+    }
+
+    /**
+     * Copy of the published post for the slug, or null if there is none. A miss is not cached.
+     */
+    public Post get(String slug) {
+        Post cached = cache.get(slug);
+        return cached != null ? copyOf(cached) : null;
+    }
+
+    /**
+     * Evict the given slugs now and again once the surrounding transaction commits,
+     * so a concurrent reader cannot re-populate the cache with the pre-commit row.
+     */
+    public void evict(String... slugs) {
+        String[] keys = Arrays.stream(slugs).filter(Objects::nonNull).distinct().toArray(String[]::new);
+        if (keys.length == 0) {
+            return;
+        }
+        evictNow(keys);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictNow(keys);
+                }
+            });
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", cache.estimatedSize());
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictionCount", stats.evictionCount());
+        result.put("evictionWeight", stats.evictionWeight());
+        result.put("averageLoadPenaltyNanos", stats.averageLoadPenalty());
+        return result;
+    }
+
+    private void evictNow(String[] slugs) {
+        for (String slug : slugs) {
+            cache.invalidate(slug);
+        }
+        logger.debug("Evicted published post cache entries: {}", Arrays.toString(slugs));
+    }
+
+    private Post copyOf(Post post) {
+        return Post.builder()
+                .id(post.getId())
+                .title(post.getTitle())
+                .slug(post.getSlug())
+                .content(post.getContent())
+                .excerpt(post.getExcerpt())
+                .wordCount(post.getWordCount())
+                .readingTimeMinutes(post.getReadingTimeMinutes())
+                .type(post.getType())
+                .thumbnailUrl(post.getThumbnailUrl())
+                .status(post.getStatus())
+                // Lượt xem đã flush (lần tải gần nhất) + lượt xem đang chờ flush
+                .viewCount((int) Math.min(Integer.MAX_VALUE, post.getViewCount() + postViewCountService.getPendingViews(post.getId())))
+                .publishAt(post.getPublishAt())
+                .createAt(post.getCreateAt())
+                .updateAt(post.getUpdateAt())
+                .build();
+    }
+
+    private static long estimateBytes(String slug, Post post) {
+        long chars = length(slug) + length(post.getTitle()) + length(post.getSlug())
+                + length(post.getContent()) + length(post.getThumbnailUrl());
+        return BASE_ENTRY_BYTES + chars * 2;
+    }
+
+    private static long length(String value) {
+        return value != null ? value.length() : 0;
+    }
+}
@@ -1,56 +1,56 @@
 package com.benhvien1a.service.impl;
 
+import com.benhvien1a.service.CaptchaVerifier;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
-import org.springframework.web.client.RestTemplate;
 
-import java.util.Map;
+import java.time.Duration;
 
+/**
+ * reCAPTCHA check for public bookings, to be called before any transaction is opened.
+ * Rejected tokens are cached for a short time, so a bot replaying the same bad token does not cost
+ * a round trip each time. Accepted tokens are never cached: a solved token must pass only once, and a
+ * reuse goes back to Google, which rejects it as "timeout-or-duplicate". Failures to reach the
+ * verifier are not cached.
+ */
 @Service
 public class RecaptchaService {
 
     private static final Logger logger = LoggerFactory.getLogger(RecaptchaService.class);
-
-    @Value("${recaptcha.secret}")
-    private String secretKey;
-
-    private static final String VERIFY_URL = "https://www.google.com/recaptcha/api/siteverify";
+    private static final int MAX_TOKEN_LENGTH = 4096;
+
+    private final CaptchaVerifier captchaVerifier;
+    private final Cache<String, Boolean> rejected;
+
+    public RecaptchaService(CaptchaVerifier captchaVerifier,
+                            @Value("${recaptcha.cache.ttl-seconds:120}") long ttlSeconds,
+                            @Value("${recaptcha.cache.max-entries:10000}") long maxEntries) {
+        this.captchaVerifier = captchaVerifier;
+        this.rejected = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumSize(maxEntries)
+                .build();
+    }
 
     public boolean verify(String token) {
+        if (token == null || token.isBlank() || token.length() > MAX_TOKEN_LENGTH) {
+            return false;
+        }
+        if (rejected.getIfPresent(token) != null) {
+            return false;
+        }
         try {
-            RestTemplate restTemplate = new RestTemplate();
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
-
-            MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
-            params.add("secret", secretKey);
-            params.add("response", token);
-
-            HttpEntity<MultiValueMap<String, String>> request =
-                    new HttpEntity<>(params, headers);
-
-            ResponseEntity<Map> response =
-                    restTemplate.postForEntity(VERIFY_URL, request, Map.class);
-
-            Map<String, Object> body = response.getBody();
-
-            logger.debug("🔍 Google reCAPTCHA raw response: {}", body);
-
-            boolean success = body != null && Boolean.TRUE.equals(body.get("success"));
-
-            if (!success) {
-                logger.warn("❌ reCAPTCHA verification failed. Error: {}", body.get("error-codes"));
+            boolean verdict = captchaVerifier.verify(token);
+            if (!verdict) {
+                rejected.put(token, Boolean.TRUE);
             }
-
-            return success;
+            return verdict;
         } catch (Exception e) {
-            logger.error("Lỗi khi xác thực reCAPTCHA", e);
+            logger.error("Lỗi khi xác thực reCAPTCHA: {}", e.getMessage());
             return false;
         }
     }
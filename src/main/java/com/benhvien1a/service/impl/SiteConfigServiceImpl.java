@@ -12,6 +12,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
@@ -21,11 +22,18 @@ public class SiteConfigServiceImpl implements SiteConfigService {
     private final CloudinaryService cloudinaryService;
 
     @Override
+    @Transactional(readOnly = true)
     public SiteConfig getSiteConfig() {
         return siteConfigRepository.findById(1L)
                 .orElseThrow(() -> new RuntimeException("SiteConfig not found"));
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<LocalDateTime> getSiteConfigUpdateAt() {
+        return siteConfigRepository.findUpdateAtById(1L);
+    }
+
     @Override
     @Transactional
     public SiteConfig updateSiteConfig(SiteConfigDTO request) {
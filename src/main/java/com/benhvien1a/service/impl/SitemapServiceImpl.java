@@ -0,0 +1,423 @@
+package com.benhvien1a.service.impl;
+
+import com.benhvien1a.model.PostStatus;
+import com.benhvien1a.model.PostType;
+import com.benhvien1a.repository.DepartmentRepository;
+import com.benhvien1a.repository.DoctorRepository;
+import com.benhvien1a.repository.PostRepository;
+import com.benhvien1a.repository.projection.PostSummary;
+import com.benhvien1a.repository.projection.SitemapEntry;
+import com.benhvien1a.response.CompressedXml;
+import com.benhvien1a.service.SitemapService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Sitemap index, sitemap shards and per-PostType RSS feeds.
+ * Each shard (posts of one type, doctors, departments) is generated by streaming slugs from the
+ * database straight into gzip-compressed XML and kept in memory until a write invalidates it;
+ * only the affected shard, its RSS feed and the (cheap) index are regenerated on the next request.
+ */
+@Service
+public class SitemapServiceImpl implements SitemapService {
+    private static final Logger logger = LoggerFactory.getLogger(SitemapServiceImpl.class);
+    private static final String SITEMAP_NS = "http://www.sitemaps.org/schemas/sitemap/0.9";
+    private static final String INDEX_KEY = "index";
+    private static final String RSS_KEY_PREFIX = "rss-";
+    private static final String POSTS_SHARD_PREFIX = "posts-";
+    private static final String DOCTORS_SHARD = "doctors";
+    private static final String DEPARTMENTS_SHARD = "departments";
+    private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newFactory();
+
+    private final PostRepository postRepository;
+    private final DoctorRepository doctorRepository;
+    private final DepartmentRepository departmentRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final String siteUrl;
+    private final String sitemapBaseUrl;
+    private final String siteName;
+    private final String postPath;
+    private final String doctorPath;
+    private final String departmentPath;
+    private final int maxUrlsPerFile;
+    private final int rssItems;
+
+    private final Map<String, Shard> shards = new ConcurrentHashMap<>();
+    private final Map<String, CompressedXml> documents = new ConcurrentHashMap<>();
+
+    public SitemapServiceImpl(PostRepository postRepository,
+                              DoctorRepository doctorRepository,
+                              DepartmentRepository departmentRepository,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${seo.site-url}") String siteUrl,
+                              @Value("${seo.sitemap-base-url}") String sitemapBaseUrl,
+                              @Value("${seo.site-name}") String siteName,
+                              @Value("${seo.post-path}") String postPath,
+                              @Value("${seo.doctor-path}") String doctorPath,
+                              @Value("${seo.department-path}") String departmentPath,
+                              @Value("${seo.sitemap.max-urls-per-file:50000}") int maxUrlsPerFile,
+                              @Value("${seo.rss.items:20}") int rssItems) {
+        this.postRepository = postRepository;
+        this.doctorRepository = doctorRepository;
+        this.departmentRepository = departmentRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.siteUrl = trimTrailingSlash(siteUrl);
+        this.sitemapBaseUrl = trimTrailingSlash(sitemapBaseUrl);
+        this.siteName = siteName;
+        this.postPath = postPath;
+        this.doctorPath = doctorPath;
+        this.departmentPath = departmentPath;
+        this.maxUrlsPerFile = Math.max(1, Math.min(50000, maxUrlsPerFile));
+        this.rssItems = Math.max(1, rssItems);
+    }
+
+    @Override
+    public CompressedXml getSitemapIndex() {
+        return documents.computeIfAbsent(INDEX_KEY, key -> buildIndex());
+    }
+
+    /**
+     * @param name file name without extension, e.g. "posts-news-1" or "doctors-1"
+     */
+    @Override
+    public Optional<CompressedXml> getSitemap(String name) {
+        int dash = name.lastIndexOf('-');
+        if (dash <= 0) {
+            return Optional.empty();
+        }
+        String shardKey = name.substring(0, dash);
+        int page;
+        try {
+            page = Integer.parseInt(name.substring(dash + 1));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+        if (!shardKeys().contains(shardKey)) {
+            return Optional.empty();
+        }
+        List<CompressedXml> pages = shard(shardKey).pages;
+        return page >= 1 && page <= pages.size() ? Optional.of(pages.get(page - 1)) : Optional.empty();
+    }
+
+    @Override
+    public CompressedXml getRssFeed(PostType type) {
+        return documents.computeIfAbsent(RSS_KEY_PREFIX + type.name(), key -> buildRss(type));
+    }
+
+    @Override
+    public void invalidatePosts(PostType... types) {
+        runAfterCommit(() -> {
+            for (PostType type : types) {
+                if (type != null) {
+                    shards.remove(postsShardKey(type));
+                    documents.remove(RSS_KEY_PREFIX + type.name());
+                }
+            }
+            documents.remove(INDEX_KEY);
+        });
+    }
+
+    @Override
+    public void invalidateDoctors() {
+        runAfterCommit(() -> {
+            shards.remove(DOCTORS_SHARD);
+            documents.remove(INDEX_KEY);
+        });
+    }
+
+    @Override
+    public void invalidateDepartments() {
+        runAfterCommit(() -> {
+            shards.remove(DEPARTMENTS_SHARD);
+            documents.remove(INDEX_KEY);
+        });
+    }
+
+    private Shard shard(String key) {
+        return shards.computeIfAbsent(key, this::buildShard);
+    }
+
+    private List<String> shardKeys() {
+        List<String> keys = new ArrayList<>();
+        for (PostType type : PostType.values()) {
+            keys.add(postsShardKey(type));
+        }
+        keys.add(DOCTORS_SHARD);
+        keys.add(DEPARTMENTS_SHARD);
+        return keys;
+    }
+
+    private static String postsShardKey(PostType type) {
+        return POSTS_SHARD_PREFIX + type.name().toLowerCase(Locale.ROOT);
+    }
+
+    private Shard buildShard(String key) {
+        logger.info("Generating sitemap shard: {}", key);
+        return readOnlyTransaction.execute(status -> {
+            if (DOCTORS_SHARD.equals(key)) {
+                try (Stream<SitemapEntry> entries = doctorRepository.streamActiveSitemapEntries()) {
+                    return writeShard(entries, doctorPath);
+                }
+            }
+            if (DEPARTMENTS_SHARD.equals(key)) {
+                try (Stream<SitemapEntry> entries = departmentRepository.streamActiveSitemapEntries()) {
+                    return writeShard(entries, departmentPath);
+                }
+            }
+            PostType type = PostType.valueOf(key.substring(POSTS_SHARD_PREFIX.length()).toUpperCase(Locale.ROOT));
+            try (Stream<SitemapEntry> entries = postRepository.streamSitemapEntries(PostStatus.PUBLIC, type)) {
+                return writeShard(entries, postPath);
+            }
+        });
+    }
+
+    /**
+     * Write the entries as one or more urlset files of at most maxUrlsPerFile URLs each.
+     */
+    private Shard writeShard(Stream<SitemapEntry> entries, String pathTemplate) {
+        List<CompressedXml> pages = new ArrayList<>();
+        LocalDateTime shardLastModified = null;
+        int urlCount = 0;
+        XmlPage page = null;
+        for (Iterator<SitemapEntry> it = entries.iterator(); it.hasNext(); ) {
+            SitemapEntry entry = it.next();
+            if (page == null || page.count == maxUrlsPerFile) {
+                if (page != null) {
+                    pages.add(page.finish(this::endUrlset));
+                }
+                page = XmlPage.start(this::startUrlset);
+            }
+            page.write(writer -> {
+                writer.writeStartElement("url");
+                writeElement(writer, "loc", siteUrl + pathTemplate.replace("{slug}", entry.getSlug()));
+                if (entry.getUpdateAt() != null) {
+                    writeElement(writer, "lastmod", entry.getUpdateAt().toLocalDate().toString());
+                }
+                writer.writeEndElement();
+            });
+            page.lastModified = max(page.lastModified, entry.getUpdateAt());
+            shardLastModified = max(shardLastModified, entry.getUpdateAt());
+            urlCount++;
+        }
+        if (page == null) {
+            page = XmlPage.start(this::startUrlset);
+        }
+        pages.add(page.finish(this::endUrlset));
+        return new Shard(List.copyOf(pages), shardLastModified, urlCount);
+    }
+
+    private void startUrlset(XMLStreamWriter writer) throws XMLStreamException {
+        writer.writeStartElement("urlset");
+        writer.writeDefaultNamespace(SITEMAP_NS);
+    }
+
+    private void endUrlset(XMLStreamWriter writer) throws XMLStreamException {
+        writer.writeEndElement();
+    }
+
+    private CompressedXml buildIndex() {
+        logger.info("Generating sitemap index");
+        LocalDateTime indexLastModified = null;
+        XmlPage index = XmlPage.start(writer -> {
+            writer.writeStartElement("sitemapindex");
+            writer.writeDefaultNamespace(SITEMAP_NS);
+        });
+        for (String key : shardKeys()) {
+            Shard shard = shard(key);
+            if (shard.urlCount == 0) {
+                continue;
+            }
+            for (int i = 1; i <= shard.pages.size(); i++) {
+                String loc = sitemapBaseUrl + "/sitemaps/" + key + "-" + i + ".xml";
+                LocalDateTime lastModified = shard.pages.get(i - 1).getLastModified();
+                index.write(writer -> {
+                    writer.writeStartElement("sitemap");
+                    writeElement(writer, "loc", loc);
+                    if (lastModified != null) {
+                        writeElement(writer, "lastmod", lastModified.toLocalDate().toString());
+                    }
+                    writer.writeEndElement();
+                });
+            }
+            indexLastModified = max(indexLastModified, shard.lastModified);
+        }
+        index.lastModified = indexLastModified;
+        return index.finish(XMLStreamWriter::writeEndElement);
+    }
+
+    private CompressedXml buildRss(PostType type) {
+        logger.info("Generating RSS feed for post type: {}", type);
+        List<PostSummary> posts = readOnlyTransaction.execute(status ->
+                postRepository.findLatestSummaries(PostStatus.PUBLIC, type, PageRequest.of(0, rssItems)));
+        LocalDateTime lastBuild = posts.stream().map(PostSummary::getPublishAt).filter(Objects::nonNull)
+                .max(Comparator.naturalOrder()).orElse(null);
+
+        XmlPage feed = XmlPage.start(writer -> {
+            writer.writeStartElement("rss");
+            writer.writeAttribute("version", "2.0");
+            writer.writeStartElement("channel");
+            writeElement(writer, "title", siteName + " - " + type.name());
+            writeElement(writer, "link", siteUrl);
+            writeElement(writer, "description", siteName + " - " + type.name());
+            writeElement(writer, "language", "vi");
+            if (lastBuild != null) {
+                writeElement(writer, "lastBuildDate", rfc1123(lastBuild));
+            }
+        });
+        for (PostSummary post : posts) {
+            String link = siteUrl + postPath.replace("{slug}", post.getSlug());
+            feed.write(writer -> {
+                writer.writeStartElement("item");
+                writeElement(writer, "title", post.getTitle());
+                writeElement(writer, "link", link);
+                writer.writeStartElement("guid");
+                writer.writeAttribute("isPermaLink", "true");
+                writer.writeCharacters(link);
+                writer.writeEndElement();
+                if (post.getPublishAt() != null) {
+                    writeElement(writer, "pubDate", rfc1123(post.getPublishAt()));
+                }
+                if (post.getExcerpt() != null) {
+                    writeElement(writer, "description", post.getExcerpt());
+                }
+                writer.writeEndElement();
+            });
+        }
+        feed.lastModified = lastBuild;
+        return feed.finish(writer -> {
+            writer.writeEndElement();
+            writer.writeEndElement();
+        });
+    }
+
+    private static void writeElement(XMLStreamWriter writer, String name, String value) throws XMLStreamException {
+        writer.writeStartElement(name);
+        writer.writeCharacters(value != null ? value : "");
+        writer.writeEndElement();
+    }
+
+    private static String rfc1123(LocalDateTime timestamp) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(timestamp.atZone(ZoneId.systemDefault()));
+    }
+
+    private static LocalDateTime max(LocalDateTime a, LocalDateTime b) {
+        if (a == null) {
+            return b;
+        }
+        return b == null || a.isAfter(b) ? a : b;
+    }
+
+    private static String trimTrailingSlash(String url) {
+        return url != null && url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    private static void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static final class Shard {
+        private final List<CompressedXml> pages;
+        private final LocalDateTime lastModified;
+        private final int urlCount;
+
+        private Shard(List<CompressedXml> pages, LocalDateTime lastModified, int urlCount) {
+            this.pages = pages;
+            this.lastModified = lastModified;
+            this.urlCount = urlCount;
+        }
+    }
+
+    @FunctionalInterface
+    private interface XmlWriteAction {
+        void write(XMLStreamWriter writer) throws XMLStreamException;
+    }
+
+    /**
+     * One XML document written straight into a gzip stream.
+     */
+    private static final class XmlPage {
+        private final ByteArrayOutputStream bytes;
+        private final GZIPOutputStream gzip;
+        private final XMLStreamWriter writer;
+        private LocalDateTime lastModified;
+        private int count;
+
+        private XmlPage(ByteArrayOutputStream bytes, GZIPOutputStream gzip, XMLStreamWriter writer) {
+            this.bytes = bytes;
+            this.gzip = gzip;
+            this.writer = writer;
+        }
+
+        private static XmlPage start(XmlWriteAction header) {
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                GZIPOutputStream gzip = new GZIPOutputStream(bytes);
+                XMLStreamWriter writer = XML_OUTPUT_FACTORY.createXMLStreamWriter(gzip, StandardCharsets.UTF_8.name());
+                writer.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+                header.write(writer);
+                return new XmlPage(bytes, gzip, writer);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (XMLStreamException e) {
+                throw new IllegalStateException("Failed to start XML document", e);
+            }
+        }
+
+        private void write(XmlWriteAction action) {
+            try {
+                action.write(writer);
+                count++;
+            } catch (XMLStreamException e) {
+                throw new IllegalStateException("Failed to write XML element", e);
+            }
+        }
+
+        private CompressedXml finish(XmlWriteAction footer) {
+            try {
+                footer.write(writer);
+                writer.writeEndDocument();
+                writer.close();
+                gzip.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (XMLStreamException e) {
+                throw new IllegalStateException("Failed to finish XML document", e);
+            }
+            byte[] compressed = bytes.toByteArray();
+            return new CompressedXml(compressed, "\"" + DigestUtils.md5DigestAsHex(compressed) + "\"", lastModified);
+        }
+    }
+}
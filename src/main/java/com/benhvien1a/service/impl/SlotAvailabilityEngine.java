@@ -0,0 +1,346 @@
+package com.benhvien1a.service.impl;
+
+import com.benhvien1a.model.DoctorDaySlots;
+import com.benhvien1a.model.WorkingTemplate;
+import com.benhvien1a.repository.DoctorDaySlotsRepository;
+import com.benhvien1a.repository.WorkingTemplateRepository;
+import com.benhvien1a.repository.projection.DoctorSummary;
+import com.benhvien1a.response.DayAvailability;
+import com.benhvien1a.response.SlotAvailability;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory appointment slot availability per doctor and day.
+ * A day is a fixed grid of 64 slots of slot-minutes each starting at day-start, so one day of one doctor
+ * is a single long: open slots come from the working templates, booked slots from doctor_day_slots.
+ * Booking claims the bit with a compare-and-set in memory and then with a conditional update in the database;
+ * month views are computed from memory only and never read the appointments table.
+ */
+@Service
+public class SlotAvailabilityEngine {
+    private static final Logger logger = LoggerFactory.getLogger(SlotAvailabilityEngine.class);
+    public static final int SLOTS_PER_DAY = Long.SIZE;
+
+    private final DoctorDaySlotsRepository doctorDaySlotsRepository;
+    private final WorkingTemplateRepository workingTemplateRepository;
+    private final DoctorDirectory doctorDirectory;
+    private final TransactionTemplate readTransaction;
+    private final int dayStartMinute;
+    private final int slotMinutes;
+    private final int bookingHorizonDays;
+
+    // Slot đã đặt của các ngày từ hôm nay trở đi; ngày không có trong map nghĩa là chưa có lịch nào
+    private final Map<DayKey, AtomicLong> booked = new ConcurrentHashMap<>();
+    private volatile Templates templates = new Templates(Map.of(), Map.of());
+
+    public SlotAvailabilityEngine(DoctorDaySlotsRepository doctorDaySlotsRepository,
+                                  WorkingTemplateRepository workingTemplateRepository,
+                                  DoctorDirectory doctorDirectory,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${appointments.slots.day-start:06:00}") LocalTime dayStart,
+                                  @Value("${appointments.slots.slot-minutes:15}") int slotMinutes,
+                                  @Value("${appointments.slots.booking-horizon-days:90}") int bookingHorizonDays) {
+        this.doctorDaySlotsRepository = doctorDaySlotsRepository;
+        this.workingTemplateRepository = workingTemplateRepository;
+        this.doctorDirectory = doctorDirectory;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTransaction.setReadOnly(true);
+        this.dayStartMinute = dayStart.toSecondOfDay() / 60;
+        this.slotMinutes = Math.max(1, slotMinutes);
+        this.bookingHorizonDays = Math.max(1, bookingHorizonDays);
+        if (dayStartMinute + SLOTS_PER_DAY * this.slotMinutes > 24 * 60) {
+            throw new IllegalStateException("appointments.slots: " + SLOTS_PER_DAY + " slots of " + this.slotMinutes
+                    + " minutes from " + dayStart + " do not fit in one day");
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reloadTemplates();
+        List<DoctorDaySlots> days = readTransaction.execute(status ->
+                doctorDaySlotsRepository.findBySlotDateGreaterThanEqual(LocalDate.now()));
+        for (DoctorDaySlots day : days) {
+            booked.put(new DayKey(day.getDoctorId(), day.getSlotDate()), new AtomicLong(day.getBookedMask()));
+        }
+        logger.info("Slot availability loaded with {} booked doctor-days", days.size());
+    }
+
+    public synchronized void reloadTemplates() {
+        List<WorkingTemplate> active = readTransaction.execute(status -> workingTemplateRepository.findByIsActiveTrue());
+        Map<Long, long[]> byDoctor = new HashMap<>();
+        Map<Long, long[]> byDepartment = new HashMap<>();
+        for (WorkingTemplate template : active) {
+            long mask = rangeMask(template.getStartTime(), template.getEndTime());
+            if (mask == 0) {
+                logger.warn("Skipping working template {} not aligned to the slot grid", template.getId());
+                continue;
+            }
+            Map<Long, long[]> target = template.getDoctorId() != null ? byDoctor : byDepartment;
+            Long ownerId = template.getDoctorId() != null ? template.getDoctorId() : template.getDepartmentId();
+            target.computeIfAbsent(ownerId, id -> new long[DayOfWeek.values().length])[template.getDayOfWeek().ordinal()] |= mask;
+        }
+        templates = new Templates(byDoctor, byDepartment);
+        logger.info("Working templates loaded: {} doctors, {} departments", byDoctor.size(), byDepartment.size());
+    }
+
+    /**
+     * Reload the templates once the current transaction commits, or immediately if there is none.
+     */
+    public void reloadTemplatesAfterCommit() {
+        runAfterCommit(this::reloadTemplates);
+    }
+
+    @Scheduled(cron = "0 5 0 * * *")
+    public void evictPastDays() {
+        LocalDate today = LocalDate.now();
+        booked.keySet().removeIf(key -> key.date.isBefore(today));
+    }
+
+    /**
+     * Mask of the grid slots in [start, end), or 0 if the range is empty or not on the grid.
+     */
+    public long rangeMask(LocalTime start, LocalTime end) {
+        int from = boundary(start);
+        int to = boundary(end);
+        if (from < 0 || to < 0 || from >= to) {
+            return 0;
+        }
+        long upTo = to == SLOTS_PER_DAY ? -1L : (1L << to) - 1;
+        return upTo & (-1L << from);
+    }
+
+    public LocalTime slotStart(int slot) {
+        return LocalTime.ofSecondOfDay((long) (dayStartMinute + slot * slotMinutes) * 60);
+    }
+
+    public LocalTime slotEnd(int slot) {
+        return slotStart(slot).plusMinutes(slotMinutes);
+    }
+
+    /**
+     * Whether the slot starting at startTime is open and not booked, read from memory only.
+     */
+    public boolean isFree(Long doctorId, LocalDate date, LocalTime startTime) {
+        Optional<DoctorSummary> doctor = doctorDirectory.current().findById(doctorId);
+        int slot = boundary(startTime);
+        return doctor.isPresent() && date != null && slot >= 0 && slot < SLOTS_PER_DAY
+                && (freeMask(doctor.get(), date) & (1L << slot)) != 0;
+    }
+
+    /**
+     * Book the slot starting at startTime. Must run inside the booking transaction: the slot is given
+     * back if that transaction rolls back.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int book(Long doctorId, LocalDate date, LocalTime startTime) {
+        DoctorSummary doctor = doctorDirectory.current().findById(doctorId)
+                .orElseThrow(() -> new RuntimeException("Doctor not found with ID: " + doctorId));
+        int slot = boundary(startTime);
+        if (slot < 0 || slot >= SLOTS_PER_DAY || (bookableMask(doctor, date) & (1L << slot)) == 0) {
+            throw new RuntimeException("Doctor is not available at " + startTime + " on " + date);
+        }
+        long bit = 1L << slot;
+
+        // Giữ chỗ trong bộ nhớ trước: các request trùng slot bị từ chối ngay, không chạm DB
+        DayKey key = new DayKey(doctorId, date);
+        AtomicLong day = booked.computeIfAbsent(key, k -> new AtomicLong());
+        long current;
+        do {
+            current = day.get();
+            if ((current & bit) != 0) {
+                throw new RuntimeException("Slot " + startTime + " on " + date + " is already booked");
+            }
+        } while (!day.compareAndSet(current, current | bit));
+
+        Claim claim = new Claim(day, bit);
+        TransactionSynchronizationManager.registerSynchronization(claim);
+        claimInDatabase(key, claim);
+        return slot;
+    }
+
+    /**
+     * Free a booked slot. The database is updated in the current transaction, memory after commit.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(Long doctorId, LocalDate date, int slot) {
+        long bit = 1L << slot;
+        // Không có dòng hoặc bit đã tắt thì không có gì để trả
+        doctorDaySlotsRepository.clearBookedBit(doctorId, date, bit);
+        runAfterCommit(() -> {
+            AtomicLong day = booked.get(new DayKey(doctorId, date));
+            if (day != null) {
+                day.getAndUpdate(mask -> mask & ~bit);
+            }
+        });
+    }
+
+    /**
+     * Per-day open/free slot counts of a department's active doctors for one month.
+     */
+    public List<DayAvailability> getDepartmentMonth(String departmentSlug, YearMonth month) {
+        List<DoctorSummary> doctors = doctorDirectory.current().getByDepartmentSlug(departmentSlug);
+        Templates current = templates;
+        List<DayAvailability> days = new ArrayList<>(month.lengthOfMonth());
+        for (LocalDate date = month.atDay(1); !date.isAfter(month.atEndOfMonth()); date = date.plusDays(1)) {
+            int open = 0;
+            int free = 0;
+            for (DoctorSummary doctor : doctors) {
+                open += Long.bitCount(current.openMask(doctor, date.getDayOfWeek()));
+                free += Long.bitCount(freeMask(doctor, date));
+            }
+            days.add(new DayAvailability(date, open, free));
+        }
+        return days;
+    }
+
+    /**
+     * Open slots of one active doctor on one day and whether each can still be booked.
+     */
+    public List<SlotAvailability> getDoctorDay(Long doctorId, LocalDate date) {
+        DoctorSummary doctor = doctorDirectory.current().findById(doctorId)
+                .orElseThrow(() -> new RuntimeException("Doctor not found with ID: " + doctorId));
+        long open = templates.openMask(doctor, date.getDayOfWeek());
+        long free = freeMask(doctor, date);
+        List<SlotAvailability> slots = new ArrayList<>(Long.bitCount(open));
+        for (long remaining = open; remaining != 0; remaining &= remaining - 1) {
+            int slot = Long.numberOfTrailingZeros(remaining);
+            slots.add(new SlotAvailability(slotStart(slot), slotEnd(slot), (free & (1L << slot)) != 0));
+        }
+        return slots;
+    }
+
+    /**
+     * Slots of the doctor that are open, not booked and still in the future.
+     */
+    private long freeMask(DoctorSummary doctor, LocalDate date) {
+        long free = bookableMask(doctor, date);
+        AtomicLong day = booked.get(new DayKey(doctor.getId(), date));
+        return day == null ? free : free & ~day.get();
+    }
+
+    /**
+     * Open slots of the doctor that can still be booked (inside the booking horizon, not started yet).
+     */
+    private long bookableMask(DoctorSummary doctor, LocalDate date) {
+        LocalDate today = LocalDate.now();
+        if (date.isBefore(today) || date.isAfter(today.plusDays(bookingHorizonDays))) {
+            return 0;
+        }
+        long bookable = templates.openMask(doctor, date.getDayOfWeek());
+        int elapsed = LocalTime.now().toSecondOfDay() / 60 - dayStartMinute;
+        if (date.equals(today) && elapsed >= 0) {
+            // Hôm nay chỉ còn các slot chưa bắt đầu
+            int next = elapsed / slotMinutes + 1;
+            bookable &= next >= SLOTS_PER_DAY ? 0 : -1L << next;
+        }
+        return bookable;
+    }
+
+    /**
+     * Set the bit on the doctor_day_slots row with one conditional update that only matches while the bit is
+     * clear. A missing row is created empty with an insert-if-absent first, so two first bookings of a day both succeed.
+     */
+    private void claimInDatabase(DayKey key, Claim claim) {
+        if (doctorDaySlotsRepository.setBookedBit(key.doctorId, key.date, claim.bit) == 1) {
+            return;
+        }
+        // Có thể chưa có dòng cho ngày này: tạo dòng rỗng (không lỗi nếu request khác vừa tạo) rồi thử lại
+        doctorDaySlotsRepository.insertIfAbsent(key.doctorId, key.date);
+        if (doctorDaySlotsRepository.setBookedBit(key.doctorId, key.date, claim.bit) == 1) {
+            return;
+        }
+        // Instance khác đã đặt slot này: giữ bit trong bộ nhớ cho khớp với DB
+        claim.day.getAndUpdate(mask -> mask | claim.bit);
+        claim.ownedByOther = true;
+        throw new RuntimeException("Slot on " + key.date + " is already booked");
+    }
+
+    private int boundary(LocalTime time) {
+        if (time == null || time.getSecond() != 0 || time.getNano() != 0) {
+            return -1;
+        }
+        int offset = time.toSecondOfDay() / 60 - dayStartMinute;
+        if (offset < 0 || offset % slotMinutes != 0 || offset / slotMinutes > SLOTS_PER_DAY) {
+            return -1;
+        }
+        return offset / slotMinutes;
+    }
+
+    private static void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private record DayKey(Long doctorId, LocalDate date) {
+    }
+
+    /**
+     * Slot bit claimed in memory by a booking transaction; given back if the transaction does not commit.
+     */
+    private static final class Claim implements TransactionSynchronization {
+        private final AtomicLong day;
+        private final long bit;
+        private boolean ownedByOther;
+
+        private Claim(AtomicLong day, long bit) {
+            this.day = day;
+            this.bit = bit;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (status != STATUS_COMMITTED && !ownedByOther) {
+                day.getAndUpdate(mask -> mask & ~bit);
+            }
+        }
+    }
+
+    /**
+     * Open slot masks per day of week. A doctor with templates of their own uses only those,
+     * otherwise the templates of their department apply.
+     */
+    private static final class Templates {
+        private final Map<Long, long[]> byDoctor;
+        private final Map<Long, long[]> byDepartment;
+
+        private Templates(Map<Long, long[]> byDoctor, Map<Long, long[]> byDepartment) {
+            this.byDoctor = byDoctor;
+            this.byDepartment = byDepartment;
+        }
+
+        private long openMask(DoctorSummary doctor, DayOfWeek dayOfWeek) {
+            long[] week = byDoctor.get(doctor.getId());
+            if (week == null && doctor.getDepartmentId() != null) {
+                week = byDepartment.get(doctor.getDepartmentId());
+            }
+            return week == null ? 0 : week[dayOfWeek.ordinal()];
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.benhvien1a.service.impl;
+
+import com.benhvien1a.model.Appointment;
+import com.benhvien1a.model.AppointmentStatus;
+import com.benhvien1a.repository.AppointmentRepository;
+import com.benhvien1a.repository.projection.SlotCount;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Lock-free reservation counters per (date, timeSlot) for appointments without a doctor
+ * (doctor bookings are limited by SlotAvailabilityEngine instead).
+ * A public booking reserves a place before reCAPTCHA and the insert, so a burst on a full slot is
+ * rejected from memory. Counters are rebuilt from the appointments table at startup.
+ * Time slots are keyed in the canonical "HH:mm" / "HH:mm - HH:mm" form, dates outside the booking horizon
+ * are refused, and a counter is removed once it drops back to zero, so made-up slots cannot grow the map.
+ */
+@Service
+public class SlotCapacityCounters {
+    private static final Logger logger = LoggerFactory.getLogger(SlotCapacityCounters.class);
+    // "8:00", "08h00", "08:00-09:00", "08:00 – 09:00", ...
+    private static final Pattern TIME_SLOT = Pattern.compile("(\\d{1,2})\\s*[:hH]\\s*(\\d{2})(?:\\s*[-–—~]\\s*(\\d{1,2})\\s*[:hH]\\s*(\\d{2}))?");
+    // Giá trị của bộ đếm đã về 0 và đang được gỡ khỏi map; ai thấy giá trị này phải lấy bộ đếm mới
+    private static final int RETIRED = -1;
+
+    private final AppointmentRepository appointmentRepository;
+    private final TransactionTemplate readTransaction;
+    private final int capacityPerSlot;
+    private final int bookingHorizonDays;
+    private final Map<LocalDate, Integer> capacityByDate;
+    private final Map<SlotKey, AtomicInteger> reserved = new ConcurrentHashMap<>();
+
+    public SlotCapacityCounters(AppointmentRepository appointmentRepository,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${appointments.capacity.per-slot:0}") int capacityPerSlot,
+                                @Value("${appointments.capacity.date-overrides:}") String dateOverrides,
+                                @Value("${appointments.slots.booking-horizon-days:90}") int bookingHorizonDays) {
+        this.appointmentRepository = appointmentRepository;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.capacityPerSlot = capacityPerSlot;
+        this.capacityByDate = parseOverrides(dateOverrides);
+        this.bookingHorizonDays = Math.max(1, bookingHorizonDays);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcile() {
+        List<SlotCount> counts = readTransaction.execute(status -> appointmentRepository.countOpenSlotsFrom(LocalDate.now()));
+        // Các cách viết khác nhau của cùng một khung giờ được gộp về một khoá
+        Map<SlotKey, Integer> totals = new HashMap<>();
+        for (SlotCount count : counts) {
+            SlotKey key = keyOf(count.getDate(), count.getTimeSlot());
+            if (key != null) {
+                totals.merge(key, count.getTotal().intValue(), Integer::sum);
+            }
+        }
+        // Cộng dồn: các lượt giữ chỗ đến trước khi đối soát xong vẫn được giữ lại
+        totals.forEach((key, total) -> add(key, total, Integer.MAX_VALUE));
+        logger.info("Slot capacity counters reconciled from {} booked slots", totals.size());
+    }
+
+    @Scheduled(cron = "0 5 0 * * *")
+    public void evictPastDays() {
+        LocalDate today = LocalDate.now();
+        reserved.keySet().removeIf(key -> key.date.isBefore(today));
+    }
+
+    /**
+     * Whether the appointment takes a place in its (date, timeSlot) counter.
+     */
+    public static boolean counts(Appointment appointment) {
+        return appointment.getDoctorId() == null && appointment.getStatus() != AppointmentStatus.CANCELLED
+                && appointment.getDate() != null && appointment.getTimeSlot() != null;
+    }
+
+    /**
+     * Take a place in the slot, or fail if it is full, the date is outside the booking horizon or the
+     * time slot cannot be parsed. The caller gives it back with release() if the booking is not stored.
+     */
+    public void reserve(LocalDate date, String timeSlot) {
+        int capacity = capacityOf(date);
+        if (capacity <= 0 || date == null || timeSlot == null) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        if (date.isBefore(today) || date.isAfter(today.plusDays(bookingHorizonDays))) {
+            throw new RuntimeException("Invalid appointment date: " + date);
+        }
+        SlotKey key = keyOf(date, timeSlot);
+        if (key == null) {
+            throw new RuntimeException("Invalid time slot: " + timeSlot);
+        }
+        if (!add(key, 1, capacity)) {
+            throw new RuntimeException("Time slot " + key.timeSlot + " on " + date + " is fully booked");
+        }
+    }
+
+    public void release(LocalDate date, String timeSlot) {
+        SlotKey key = keyOf(date, timeSlot);
+        if (key == null) {
+            return;
+        }
+        while (true) {
+            AtomicInteger counter = reserved.get(key);
+            if (counter == null) {
+                return;
+            }
+            int current = counter.get();
+            if (current == RETIRED) {
+                reserved.remove(key, counter);
+                continue;
+            }
+            if (current == 0) {
+                return;
+            }
+            if (counter.compareAndSet(current, current - 1)) {
+                // Về 0: gỡ bộ đếm khỏi map; lượt giữ chỗ đồng thời thấy RETIRED và tạo bộ đếm mới
+                if (current == 1 && counter.compareAndSet(0, RETIRED)) {
+                    reserved.remove(key, counter);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Move an edited appointment between counters once the edit commits. Staff edits are not limited.
+     */
+    public void transferAfterCommit(LocalDate fromDate, String fromSlot, boolean fromCounted,
+                                    LocalDate toDate, String toSlot, boolean toCounted) {
+        runAfterCommit(() -> {
+            if (fromCounted) {
+                release(fromDate, fromSlot);
+            }
+            SlotKey to = keyOf(toDate, toSlot);
+            if (toCounted && to != null) {
+                add(to, 1, Integer.MAX_VALUE);
+            }
+        });
+    }
+
+    /**
+     * Canonical "HH:mm" or "HH:mm - HH:mm" form of a time slot, or null if it is not a time or time range.
+     */
+    static String canonicalTimeSlot(String timeSlot) {
+        if (timeSlot == null) {
+            return null;
+        }
+        Matcher matcher = TIME_SLOT.matcher(timeSlot.trim());
+        if (!matcher.matches()) {
+            return null;
+        }
+        try {
+            LocalTime start = LocalTime.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+            if (matcher.group(3) == null) {
+                return start.toString();
+            }
+            LocalTime end = LocalTime.of(Integer.parseInt(matcher.group(3)), Integer.parseInt(matcher.group(4)));
+            return end.isAfter(start) ? start + " - " + end : null;
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    private static SlotKey keyOf(LocalDate date, String timeSlot) {
+        String canonical = canonicalTimeSlot(timeSlot);
+        return date == null || canonical == null ? null : new SlotKey(date, canonical);
+    }
+
+    /**
+     * Add amount to the counter of the key unless that would take it above limit.
+     */
+    private boolean add(SlotKey key, int amount, int limit) {
+        while (true) {
+            AtomicInteger counter = reserved.computeIfAbsent(key, k -> new AtomicInteger());
+            int current = counter.get();
+            if (current == RETIRED) {
+                reserved.remove(key, counter);
+                continue;
+            }
+            if (current > limit - amount) {
+                return false;
+            }
+            if (counter.compareAndSet(current, current + amount)) {
+                return true;
+            }
+        }
+    }
+
+    private int capacityOf(LocalDate date) {
+        return capacityByDate.getOrDefault(date, capacityPerSlot);
+    }
+
+    /**
+     * "2026-11-02=200,2026-11-09=150": per-date capacity, e.g. for vaccination days.
+     */
+    private static Map<LocalDate, Integer> parseOverrides(String dateOverrides) {
+        Map<LocalDate, Integer> overrides = new HashMap<>();
+        if (dateOverrides == null || dateOverrides.isBlank()) {
+            return overrides;
+        }
+        for (String entry : dateOverrides.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalStateException("Invalid appointments.capacity.date-overrides entry: " + entry);
+            }
+            overrides.put(LocalDate.parse(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+        }
+        return overrides;
+    }
+
+    private static void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private record SlotKey(LocalDate date, String timeSlot) {
+    }
+}
@@ -6,6 +6,7 @@
 package com.benhvien1a.util;
 
 import com.benhvien1a.response.ApiResponse;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
@@ -23,6 +24,26 @@ public class ApiResponseUtil {
         return buildResponse(success, message, data, path, ZonedDateTime.now());
     }
 
+    /**
+     * Build a success response carrying validators so clients and the CDN can revalidate with a conditional GET.
+     */
+    public static <T> ResponseEntity<ApiResponse<T>> buildCacheableResponse(boolean success, String message, T data, String path, String eTag, long lastModified) {
+        return validators(ResponseEntity.ok(), eTag, lastModified)
+                .body(new ApiResponse<>(success, message, data, null, ZonedDateTime.now(), path));
+    }
+
+    public static <T> ResponseEntity<ApiResponse<T>> buildNotModifiedResponse(String eTag, long lastModified) {
+        return validators(ResponseEntity.status(HttpStatus.NOT_MODIFIED), eTag, lastModified).build();
+    }
+
+    private static ResponseEntity.BodyBuilder validators(ResponseEntity.BodyBuilder builder, String eTag, long lastModified) {
+        builder.cacheControl(CacheControl.noCache().cachePublic()).eTag(eTag);
+        if (lastModified >= 0) {
+            builder.lastModified(lastModified);
+        }
+        return builder;
+    }
+
     public static <T> ResponseEntity<ApiResponse<T>> buildErrorResponse(HttpStatus status, String message, String error, String path, ZonedDateTime timestamp) {
         return ResponseEntity.status(status)
                 .body(new ApiResponse<>(false, message, null, error, timestamp, path));
@@ -0,0 +1,38 @@
+package com.benhvien1a.util;
+
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.WebRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Utility class for HTTP validators (ETag / Last-Modified) on conditional GET endpoints.
+ */
+public class HttpCacheUtils {
+
+    /**
+     * Build a strong ETag from the given version parts (ids, timestamps, counts, request params).
+     */
+    public static String eTag(Object... parts) {
+        String raw = Arrays.stream(parts).map(String::valueOf).collect(Collectors.joining("|"));
+        return "\"" + DigestUtils.md5DigestAsHex(raw.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /**
+     * Epoch millis of the timestamp, or -1 when unknown.
+     */
+    public static long lastModified(LocalDateTime timestamp) {
+        return timestamp != null ? timestamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1;
+    }
+
+    /**
+     * Check If-None-Match / If-Modified-Since against the current validators.
+     */
+    public static boolean isNotModified(WebRequest request, String eTag, long lastModified) {
+        return lastModified >= 0 ? request.checkNotModified(eTag, lastModified) : request.checkNotModified(eTag);
+    }
+}
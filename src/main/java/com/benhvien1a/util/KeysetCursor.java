@@ -0,0 +1,57 @@
+package com.benhvien1a.util;
+
+import com.benhvien1a.exception.InvalidCursorException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Opaque cursor for keyset pagination: the sort timestamp (optional) and id of the last row of a slice.
+ */
+@Getter
+@AllArgsConstructor
+public class KeysetCursor {
+    public static final int MAX_PAGE_SIZE = 100;
+    private static final KeysetCursor FIRST = new KeysetCursor(null, null);
+
+    private final LocalDateTime timestamp;
+    private final Long id;
+
+    public String encode() {
+        String raw = (timestamp != null ? timestamp.toString() : "") + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String encode(LocalDateTime timestamp, Long id) {
+        return new KeysetCursor(timestamp, id).encode();
+    }
+
+    /**
+     * Decode a cursor from the request; a blank cursor means the first slice.
+     * A cursor that was not produced by encode() raises InvalidCursorException.
+     */
+    public static KeysetCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return FIRST;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            String timestamp = raw.substring(0, separator);
+            return new KeysetCursor(timestamp.isEmpty() ? null : LocalDateTime.parse(timestamp),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException("Invalid cursor: " + cursor);
+        }
+    }
+
+    /**
+     * Clamp the requested slice size to [1, MAX_PAGE_SIZE].
+     */
+    public static int clampSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+}
@@ -0,0 +1,108 @@
+package com.benhvien1a.util;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.safety.Cleaner;
+import org.jsoup.safety.Safelist;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Utility class for processing post content once at write time:
+ * HTML sanitizing/minifying, plain-text excerpt, word count and reading time.
+ */
+public class PostContentUtils {
+    public static final int EXCERPT_LENGTH = 300;
+    private static final int WORDS_PER_MINUTE = 200;
+
+    // Các host được phép nhúng bằng iframe (video, bản đồ)
+    private static final Set<String> EMBED_HOSTS = Set.of(
+            "www.youtube.com", "youtube.com", "www.youtube-nocookie.com", "player.vimeo.com",
+            "www.facebook.com", "www.google.com", "maps.google.com");
+    private static final Pattern UNSAFE_STYLE = Pattern.compile("expression\\s*\\(|url\\s*\\(|javascript:|@import",
+            Pattern.CASE_INSENSITIVE);
+
+    // relaxed() cộng các thẻ/thuộc tính mà trình soạn thảo của admin sinh ra (căn lề, màu, hình có chú thích, video)
+    private static final Safelist SAFELIST = Safelist.relaxed()
+            .addTags("figure", "figcaption", "hr", "s", "iframe", "video", "source")
+            .addAttributes(":all", "class", "style")
+            .addAttributes("iframe", "src", "width", "height", "allow", "allowfullscreen", "frameborder", "title")
+            .addAttributes("video", "src", "controls", "width", "height", "poster")
+            .addAttributes("source", "src", "type")
+            .addProtocols("img", "src", "data")
+            .addProtocols("iframe", "src", "https")
+            .addProtocols("video", "src", "http", "https")
+            .addProtocols("source", "src", "http", "https");
+    private static final Document.OutputSettings MINIFIED = new Document.OutputSettings().prettyPrint(false);
+
+    /**
+     * Remove scripts, event handlers, unknown tags, iframes from hosts outside EMBED_HOSTS and styles that
+     * can load or run code, and emit the body without pretty-print whitespace.
+     */
+    public static String sanitizeHtml(String html) {
+        if (html == null) {
+            return null;
+        }
+        Document dirty = Jsoup.parseBodyFragment(html);
+        dirty.select("iframe").forEach(frame -> {
+            if (!isAllowedEmbed(frame.attr("src"))) {
+                frame.remove();
+            }
+        });
+        for (Element styled : dirty.select("[style]")) {
+            if (UNSAFE_STYLE.matcher(styled.attr("style")).find()) {
+                styled.removeAttr("style");
+            }
+        }
+        Document clean = new Cleaner(SAFELIST).clean(dirty);
+        clean.outputSettings(MINIFIED);
+        return clean.body().html().trim();
+    }
+
+    private static boolean isAllowedEmbed(String src) {
+        try {
+            URI uri = new URI(src.trim());
+            return "https".equalsIgnoreCase(uri.getScheme()) && uri.getHost() != null
+                    && EMBED_HOSTS.contains(uri.getHost().toLowerCase(Locale.ROOT));
+        } catch (URISyntaxException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Extract normalized plain text from HTML.
+     */
+    public static String toPlainText(String html) {
+        if (html == null || html.isBlank()) {
+            return "";
+        }
+        return Jsoup.parse(html).text();
+    }
+
+    /**
+     * Cut the text at a word boundary so it fits in EXCERPT_LENGTH characters.
+     */
+    public static String excerpt(String text) {
+        if (text == null || text.length() <= EXCERPT_LENGTH) {
+            return text;
+        }
+        int end = text.lastIndexOf(' ', EXCERPT_LENGTH - 1);
+        return text.substring(0, end > 0 ? end : EXCERPT_LENGTH - 1).trim() + "…";
+    }
+
+    public static int countWords(String text) {
+        if (text == null || text.isBlank()) {
+            return 0;
+        }
+        return text.trim().split("\\s+").length;
+    }
+
+    public static int readingTimeMinutes(int wordCount) {
+        return Math.max(1, (wordCount + WORDS_PER_MINUTE - 1) / WORDS_PER_MINUTE);
+    }
+}
@@ -0,0 +1,117 @@
+package com.benhvien1a.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Writes rows from a forward-only Stream straight to an OutputStream as CSV or NDJSON,
+ * one row at a time, so memory use does not depend on the number of rows.
+ */
+public final class RowExporter {
+    /**
+     * Fetch size hint that makes MySQL Connector/J stream the result set row by row
+     * instead of buffering it entirely on the client.
+     */
+    public static final String STREAM_FETCH_SIZE = "-2147483648";
+    private static final int FLUSH_EVERY_ROWS = 500;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    private RowExporter() {
+    }
+
+    /**
+     * @return number of rows written
+     */
+    public static <T> long write(Stream<T> rows, ExportFormat format, List<String> columns,
+                                 Function<T, Object[]> values, OutputStream out) throws IOException {
+        return format == ExportFormat.NDJSON
+                ? writeNdjson(rows, columns, values, out)
+                : writeCsv(rows, columns, values, out);
+    }
+
+    private static <T> long writeCsv(Stream<T> rows, List<String> columns, Function<T, Object[]> values,
+                                     OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        // BOM để Excel nhận đúng UTF-8 (tiếng Việt)
+        writer.write('\uFEFF');
+        writeCsvLine(writer, columns.toArray());
+        long count = 0;
+        for (Iterator<T> it = rows.iterator(); it.hasNext(); ) {
+            writeCsvLine(writer, values.apply(it.next()));
+            if (++count % FLUSH_EVERY_ROWS == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+        return count;
+    }
+
+    private static void writeCsvLine(Writer writer, Object[] fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(csvField(fields[i]));
+        }
+        writer.write("\r\n");
+    }
+
+    private static String csvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value instanceof Enum<?> e ? e.name() : value.toString();
+        // Chặn CSV/formula injection khi mở bằng Excel (dữ liệu do người dùng nhập)
+        if (!text.isEmpty() && "=+-@\t\r".indexOf(text.charAt(0)) >= 0 && !(value instanceof Number)) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            text = "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+
+    private static <T> long writeNdjson(Stream<T> rows, List<String> columns, Function<T, Object[]> values,
+                                        OutputStream out) throws IOException {
+        long count = 0;
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+            for (Iterator<T> it = rows.iterator(); it.hasNext(); ) {
+                Object[] fields = values.apply(it.next());
+                generator.writeStartObject();
+                for (int i = 0; i < columns.size(); i++) {
+                    generator.writeFieldName(columns.get(i));
+                    writeJsonValue(generator, fields[i]);
+                }
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+                if (++count % FLUSH_EVERY_ROWS == 0) {
+                    generator.flush();
+                }
+            }
+            generator.flush();
+        }
+        return count;
+    }
+
+    private static void writeJsonValue(JsonGenerator generator, Object value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof Integer || value instanceof Long) {
+            generator.writeNumber(((Number) value).longValue());
+        } else if (value instanceof Boolean b) {
+            generator.writeBoolean(b);
+        } else if (value instanceof Enum<?> e) {
+            generator.writeString(e.name());
+        } else {
+            generator.writeString(value.toString());
+        }
+    }
+}